@@ -0,0 +1,102 @@
+package com.albert.springbootessentials2.benchmark;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.repository.AnimeBatchRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * One POST /animes/admin/save-many of {@code rows} Anime: {@code perRowInsert} is one INSERT round trip
+ * per row in one transaction, what saveAll() did with an IDENTITY id, {@code batchInsert} is
+ * {@link AnimeBatchRepository#insertAll} with {@code chunkSize} rows per batch and commit.
+ * <p>
+ * H2 by default, which has no network round trip to save, so the gap mostly shows on MySQL. Point it at a
+ * scratch schema there, the anime table is emptied after every iteration:
+ * {@code -p url=jdbc:mysql://localhost:3306/bench?rewriteBatchedStatements=true -p username=root -p password=root}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnimeInsertBenchmark {
+    private static final String INSERT_SQL = "insert into anime (name, version) values (?, 0)";
+
+    @Param({"jdbc:h2:mem:insert;DB_CLOSE_DELAY=-1"})
+    public String url;
+    @Param({"sa"})
+    public String username;
+    @Param({""})
+    public String password;
+    @Param({"1000", "10000"})
+    public int rows;
+    @Param({"100", "500"})
+    public int chunkSize;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private AnimeBatchRepository animeBatchRepository;
+    private List<Anime> animeList;
+
+    @Setup
+    public void setup() {
+        // one connection, like a request holding one from the pool, so connecting is not measured
+        dataSource = new SingleConnectionDataSource(url, username, password, true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists anime (id bigint auto_increment primary key, "
+                + "name varchar(255) not null, version bigint not null)");
+
+        final DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        animeBatchRepository = new AnimeBatchRepository(jdbcTemplate, transactionManager, chunkSize, rows);
+        animeList = IntStream.range(0, rows)
+                .mapToObj(i -> Anime.builder().name("Anime number " + i).build())
+                .toList();
+    }
+
+    @TearDown(Level.Iteration)
+    public void emptyTable() {
+        jdbcTemplate.execute("delete from anime");
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public List<Anime> perRowInsert() {
+        return transactionTemplate.execute(status -> {
+            final List<Anime> savedList = new ArrayList<>(animeList.size());
+            for (Anime anime : animeList) {
+                final KeyHolder keyHolder = new GeneratedKeyHolder();
+                jdbcTemplate.update(connection -> {
+                    final PreparedStatement ps = connection.prepareStatement(INSERT_SQL, new String[]{"id"});
+                    ps.setString(1, anime.getName());
+                    return ps;
+                }, keyHolder);
+                savedList.add(Anime.builder().id(keyHolder.getKey().longValue()).name(anime.getName()).version(0L).build());
+            }
+            return savedList;
+        });
+    }
+
+    @Benchmark
+    public List<Anime> batchInsert() {
+        return animeBatchRepository.insertAll(animeList, savedChunk -> {
+        });
+    }
+}
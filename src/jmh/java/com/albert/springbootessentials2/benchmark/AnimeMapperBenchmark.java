@@ -0,0 +1,41 @@
+package com.albert.springbootessentials2.benchmark;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.mapper.AnimeMapper;
+import com.albert.springbootessentials2.mapper.AnimeMapperImpl;
+import com.albert.springbootessentials2.request.AnimePOSTBody;
+import com.albert.springbootessentials2.request.AnimePUTBody;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The MapStruct mapper runs once per save and per replace.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnimeMapperBenchmark {
+    private final AnimeMapper animeMapper = new AnimeMapperImpl();
+    private AnimePOSTBody animePOSTBody;
+    private AnimePUTBody animePUTBody;
+
+    @Setup
+    public void setup() {
+        animePOSTBody = AnimePOSTBody.builder().name("Tensei Shitara Slime Datta Ken").build();
+        animePUTBody = AnimePUTBody.builder().id(1L).name("Tensei Shitara Slime Datta Ken").version(3L).build();
+    }
+
+    @Benchmark
+    public Anime toAnimeFromPOSTBody() {
+        return animeMapper.toAnime(animePOSTBody);
+    }
+
+    @Benchmark
+    public Anime toAnimeFromPUTBody() {
+        return animeMapper.toAnime(animePUTBody);
+    }
+}
@@ -0,0 +1,119 @@
+package com.albert.springbootessentials2.benchmark;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.repository.AnimeRepository;
+import com.albert.springbootessentials2.search.AnimeNameIndex;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * GET /animes/find answered by the {@code like %:name%} scan and by the trigram index plus the load by id,
+ * both against an H2 table of {@code rows} random names of which {@link #MATCHES} contain the query.
+ * The scan grows with the table, the index doesn't: the row count where {@code trigramIndex} becomes
+ * faster than {@code likeScan} is the value for {@code anime.search.index.fallback-below-rows}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnimeNameIndexBenchmark {
+    private static final int MATCHES = 10;
+    private static final String QUERY = "slime datta";
+    private static final RowMapper<Anime> ANIME_ROW_MAPPER = (rs, rowNum) -> Anime.builder()
+            .id(rs.getLong(1))
+            .name(rs.getString(2))
+            .version(rs.getLong(3))
+            .build();
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int rows;
+
+    private JdbcTemplate jdbcTemplate;
+    private AnimeNameIndex animeNameIndex;
+
+    @Setup
+    public void setup() {
+        final DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:name-index;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table anime (id bigint primary key, name varchar(255) not null, version bigint not null)");
+        jdbcTemplate.execute("create index idx_anime_name_id on anime (name, id)");
+
+        final List<Anime> animeList = createAnimeList();
+        jdbcTemplate.batchUpdate("insert into anime (id, name, version) values (?, ?, 0)", new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, animeList.get(i).getId());
+                ps.setString(2, animeList.get(i).getName());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return animeList.size();
+            }
+        });
+
+        final AnimeRepository animeRepository = Mockito.mock(AnimeRepository.class);
+        Mockito.when(animeRepository.streamAllAfter(0L)).thenAnswer(invocation -> animeList.stream());
+        animeNameIndex = new AnimeNameIndex(animeRepository, true, 0, 1000, new DataSourceTransactionManager(dataSource));
+        animeNameIndex.rebuild();
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbcTemplate.execute("drop table anime");
+    }
+
+    @Benchmark
+    public List<Anime> likeScan() {
+        return jdbcTemplate.query("select id, name, version from anime where lower(name) like ?",
+                ANIME_ROW_MAPPER, "%" + QUERY + "%");
+    }
+
+    @Benchmark
+    public List<Anime> trigramIndex() {
+        final List<Long> ids = animeNameIndex.findIds(QUERY).orElseThrow();
+        if (ids.isEmpty())
+            return Collections.emptyList();
+        final String inClause = ids.stream().map(id -> "?").collect(Collectors.joining(",", "(", ")"));
+        return jdbcTemplate.query("select id, name, version from anime where id in " + inClause,
+                ANIME_ROW_MAPPER, ids.toArray());
+    }
+
+    // seeded, so every run searches the same table
+    private List<Anime> createAnimeList() {
+        final Random random = new Random(42);
+        final int matchEvery = Math.max(rows / MATCHES, 1);
+        final List<Anime> animeList = new ArrayList<>(rows);
+        for (long id = 1; id <= rows; id++) {
+            final String name = id % matchEvery == 0 && id / matchEvery <= MATCHES
+                    ? "Tensei Shitara Slime Datta Ken " + id
+                    : randomName(random);
+            animeList.add(Anime.builder().id(id).name(name).version(0L).build());
+        }
+        return animeList;
+    }
+
+    private static String randomName(Random random) {
+        final char[] name = new char[12 + random.nextInt(20)];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = random.nextInt(6) == 0 ? ' ' : (char) ('a' + random.nextInt(26));
+        }
+        return new String(name);
+    }
+}
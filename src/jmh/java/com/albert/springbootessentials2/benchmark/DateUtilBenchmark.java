@@ -0,0 +1,23 @@
+package com.albert.springbootessentials2.benchmark;
+
+import com.albert.springbootessentials2.util.DateUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateUtilBenchmark {
+    private final DateUtil dateUtil = new DateUtil();
+    private final LocalDateTime localDateTime = LocalDateTime.of(2024, 2, 10, 18, 30, 15);
+
+    @Benchmark
+    public String formatLocalDateTimeToDBPattern() {
+        return dateUtil.formatLocalDateTimeToDBPattern(localDateTime);
+    }
+}
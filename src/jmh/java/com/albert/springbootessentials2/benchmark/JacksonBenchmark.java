@@ -0,0 +1,83 @@
+package com.albert.springbootessentials2.benchmark;
+
+import com.albert.springbootessentials2.client.LeanPage;
+import com.albert.springbootessentials2.client.LeanPageDecoder;
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.wrapper.PageableResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * What the listing endpoints spend in Jackson: one Anime (GET /animes/{id}), a page of Anime
+ * (GET /animes) and reading that page back, into a {@link PageableResponse} as the integration tests
+ * do or through the {@link LeanPageDecoder} of the API client.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JacksonBenchmark {
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private ObjectWriter animeWriter;
+    private ObjectWriter pageWriter;
+    private ObjectReader pageableResponseReader;
+    private LeanPageDecoder<Anime> leanPageDecoder;
+    private Anime anime;
+    private Page<Anime> page;
+    private byte[] pageJson;
+
+    @Setup
+    public void setup() throws IOException {
+        // the same defaults Spring Boot applies to the ObjectMapper of the web layer
+        final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        animeWriter = objectMapper.writerFor(Anime.class);
+        pageWriter = objectMapper.writerFor(new TypeReference<Page<Anime>>() {
+        });
+        pageableResponseReader = objectMapper.readerFor(new TypeReference<PageableResponse<Anime>>() {
+        });
+        leanPageDecoder = new LeanPageDecoder<>(objectMapper, Anime.class);
+
+        anime = Anime.builder().id(1L).name("Tensei Shitara Slime Datta Ken").version(0L).build();
+        final List<Anime> content = LongStream.rangeClosed(1, pageSize)
+                .mapToObj(id -> Anime.builder().id(id).name("Anime number " + id).version(0L).build())
+                .toList();
+        page = new PageImpl<>(content, PageRequest.of(0, pageSize), 10_000);
+        pageJson = pageWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] writeAnime() throws IOException {
+        return animeWriter.writeValueAsBytes(anime);
+    }
+
+    @Benchmark
+    public byte[] writePage() throws IOException {
+        return pageWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public PageableResponse<Anime> readPageableResponse() throws IOException {
+        return pageableResponseReader.readValue(pageJson);
+    }
+
+    @Benchmark
+    public LeanPage<Anime> readLeanPage() throws IOException {
+        return leanPageDecoder.decode(pageJson);
+    }
+}
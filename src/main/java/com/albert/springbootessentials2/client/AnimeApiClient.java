@@ -0,0 +1,291 @@
+package com.albert.springbootessentials2.client;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.request.AnimePOSTBody;
+import com.albert.springbootessentials2.request.AnimePUTBody;
+import com.albert.springbootessentials2.wrapper.AnimeBatchResponse;
+import com.albert.springbootessentials2.wrapper.CursorPage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Client for the /animes API. Build one per application and share it: the underlying
+ * {@link HttpClient} keeps the connections alive and reuses them across calls and threads
+ * (idle ones are closed after {@code jdk.httpclient.keepalive.timeout} seconds, 20 by default).
+ * <p>
+ * Every call is asynchronous and fails with {@link AnimeApiException} on an unexpected status.
+ * {@link #streamAll(String, int)} and {@link #streamAllPages(int)} walk the whole catalog lazily,
+ * fetching the next slice while the current one is consumed.
+ * <pre>{@code
+ * AnimeApiClient client = AnimeApiClient.builder("http://localhost:8080")
+ *         .basicAuth("albert", "1234")
+ *         .requestTimeout(Duration.ofSeconds(5))
+ *         .build();
+ * client.findById(1).thenAccept(System.out::println);
+ * }</pre>
+ */
+public class AnimeApiClient {
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final String authorization;
+    private final Duration requestTimeout;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader animeReader;
+    private final ObjectReader animeListReader;
+    private final ObjectReader cursorPageReader;
+    private final ObjectReader batchReader;
+    private final LeanPageDecoder<Anime> pageDecoder;
+
+    private AnimeApiClient(Builder builder) {
+        final HttpClient.Builder httpClientBuilder = HttpClient.newBuilder()
+                // Tomcat doesn't speak h2c by default, this saves the upgrade attempt on every new connection
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(builder.connectTimeout);
+        if (builder.executor != null)
+            httpClientBuilder.executor(builder.executor);
+        this.httpClient = httpClientBuilder.build();
+        this.baseUrl = builder.baseUrl;
+        this.authorization = builder.authorization;
+        this.requestTimeout = builder.requestTimeout;
+        // newer servers may add fields, they must not break older clients
+        this.objectMapper = builder.objectMapper.copy()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.animeReader = objectMapper.readerFor(Anime.class);
+        this.animeListReader = objectMapper.readerForListOf(Anime.class);
+        this.cursorPageReader = objectMapper.readerFor(objectMapper.getTypeFactory()
+                .constructParametricType(CursorPage.class, Anime.class));
+        this.batchReader = objectMapper.readerFor(AnimeBatchResponse.class);
+        this.pageDecoder = new LeanPageDecoder<>(objectMapper, Anime.class);
+    }
+
+    public static Builder builder(String baseUrl) {
+        return new Builder(baseUrl);
+    }
+
+    public CompletableFuture<Anime> findById(long id) {
+        return send(get("/animes/" + id), 200, animeReader::readValue);
+    }
+
+    public CompletableFuture<List<Anime>> findAllByName(String name) {
+        return send(get("/animes/find?name=" + encode(name)), 200, animeListReader::readValue);
+    }
+
+    public CompletableFuture<AnimeBatchResponse> findAllById(long... ids) {
+        final String csv = LongStream.of(ids).mapToObj(Long::toString).collect(Collectors.joining(","));
+        return send(get("/animes/batch?ids=" + csv), 200, batchReader::readValue);
+    }
+
+    public CompletableFuture<LeanPage<Anime>> findPage(int page, int size) {
+        return send(get("/animes?page=" + page + "&size=" + size + "&sort=id"), 200, pageDecoder::decode);
+    }
+
+    /**
+     * One slice of the keyset listing, {@code cursor} is null for the first one.
+     */
+    public CompletableFuture<CursorPage<Anime>> scroll(String cursor, String sort, int size) {
+        final String query = cursor == null ? "sort=" + encode(sort) : "cursor=" + encode(cursor);
+        return send(get("/animes/scroll?" + query + "&size=" + size), 200, cursorPageReader::readValue);
+    }
+
+    public CompletableFuture<Anime> save(AnimePOSTBody animePOSTBody) {
+        return send(json("/animes/admin", "POST", animePOSTBody), 201, animeReader::readValue);
+    }
+
+    public CompletableFuture<List<Anime>> saveMany(List<AnimePOSTBody> animeList) {
+        return send(json("/animes/admin/save-many", "POST", animeList), 201, animeListReader::readValue);
+    }
+
+    public CompletableFuture<Void> replace(AnimePUTBody animePUTBody) {
+        return send(json("/animes/admin", "PUT", animePUTBody), 204, body -> null);
+    }
+
+    public CompletableFuture<Void> remove(long id) {
+        return send(request("/animes/admin/" + id).DELETE(), 204, body -> null);
+    }
+
+    /**
+     * Every Anime, sorted by {@code sort} ('id' or 'name'), through the keyset listing. Slices are
+     * requested one ahead, so the next one is usually there when the current one is used up.
+     */
+    public Stream<Anime> streamAll(String sort, int size) {
+        return prefetching(scroll(null, sort, size), slice -> new Slice<CursorPage<Anime>>(slice.getContent(),
+                slice.isLast() || slice.getNextCursor() == null ? null : () -> scroll(slice.getNextCursor(), sort, size)));
+    }
+
+    /**
+     * Every Anime, in id order, through the page listing. Prefer {@link #streamAll(String, int)}:
+     * deep pages cost the server an OFFSET scan and a count each.
+     */
+    public Stream<Anime> streamAllPages(int size) {
+        return prefetching(findPage(0, size), page -> new Slice<LeanPage<Anime>>(page.content(),
+                page.last() ? null : () -> findPage(page.number() + 1, size)));
+    }
+
+    private <P> Stream<Anime> prefetching(CompletableFuture<P> first, Function<P, Slice<P>> toSlice) {
+        final Iterator<Anime> iterator = new Iterator<>() {
+            private CompletableFuture<P> next = first;
+            private Iterator<Anime> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext()) {
+                    if (next == null)
+                        return false;
+                    final Slice<P> slice = toSlice.apply(join(next));
+                    // ask for the following slice before handing out this one
+                    next = slice.next() == null ? null : slice.next().get();
+                    current = slice.content().iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public Anime next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return current.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private static <P> P join(CompletableFuture<P> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            throw e;
+        }
+    }
+
+    private <T> CompletableFuture<T> send(HttpRequest.Builder request, int expectedStatus, BodyDecoder<T> decoder) {
+        return httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    if (response.statusCode() != expectedStatus)
+                        throw new AnimeApiException(response.statusCode(), new String(response.body(), StandardCharsets.UTF_8));
+                    try {
+                        return decoder.decode(response.body());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return request(path).GET();
+    }
+
+    private HttpRequest.Builder json(String path, String method, Object body) {
+        final byte[] bytes;
+        try {
+            bytes = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not serialize the request body", e);
+        }
+        return request(path)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofByteArray(bytes));
+    }
+
+    private HttpRequest.Builder request(String path) {
+        final HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Accept", "application/json")
+                .timeout(requestTimeout);
+        if (authorization != null)
+            builder.header("Authorization", authorization);
+        return builder;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    private interface BodyDecoder<T> {
+        T decode(byte[] body) throws IOException;
+    }
+
+    // next is null on the last slice
+    private record Slice<P>(List<Anime> content, Supplier<CompletableFuture<P>> next) {
+    }
+
+    public static class Builder {
+        private final String baseUrl;
+        private String authorization;
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        private Duration requestTimeout = Duration.ofSeconds(30);
+        private Executor executor;
+        private ObjectMapper objectMapper = new ObjectMapper();
+
+        private Builder(String baseUrl) {
+            this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        }
+
+        public Builder basicAuth(String username, String password) {
+            this.authorization = "Basic " + Base64.getEncoder()
+                    .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+            return this;
+        }
+
+        // a token from POST /auth/token, it skips the password check on every call
+        public Builder bearerToken(String token) {
+            this.authorization = "Bearer " + token;
+            return this;
+        }
+
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        public Builder requestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        // runs the response handling and decoding, the HttpClient's own pool is used otherwise
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public Builder objectMapper(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+            return this;
+        }
+
+        public AnimeApiClient build() {
+            return new AnimeApiClient(this);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.albert.springbootessentials2.client;
+
+import lombok.Getter;
+
+/**
+ * The API answered with an unexpected status. The body is kept as the server sent it.
+ */
+@Getter
+public class AnimeApiException extends RuntimeException {
+    private final int status;
+    private final String body;
+
+    public AnimeApiException(int status, String body) {
+        super("Anime API answered " + status + ": " + body);
+        this.status = status;
+        this.body = body;
+    }
+}
@@ -0,0 +1,100 @@
+package com.albert.springbootessentials2.client;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop comparison of HTTP Basic against the bearer token from /auth/token, both hitting
+ * GET /animes/{id} (served from the cache, so authentication dominates the cost).
+ * <p>
+ * args: [baseUrl] [username] [password] [threads] [seconds] [animeId]
+ */
+@Log4j2
+public class AuthThroughputBenchmark {
+    private static final Pattern ACCESS_TOKEN = Pattern.compile("\"accessToken\"\\s*:\\s*\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        final String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        final String username = args.length > 1 ? args[1] : "albert";
+        final String password = args.length > 2 ? args[2] : "1234";
+        final int threads = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+        final int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 30;
+        final long animeId = args.length > 5 ? Long.parseLong(args[5]) : 1L;
+
+        final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        final String basic = "Basic " + Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        final String bearer = "Bearer " + fetchToken(httpClient, baseUrl, basic);
+        final URI uri = URI.create(baseUrl + "/animes/" + animeId);
+
+        for (String authorization : List.of(basic, bearer)) {
+            final String scheme = authorization.substring(0, authorization.indexOf(' '));
+            run(httpClient, uri, authorization, threads, Math.max(1, seconds / 3)); // warm up (JIT, caches)
+            final Result result = run(httpClient, uri, authorization, threads, seconds);
+            log.info("{}: {} req/s, {} errors, {} threads, {}s",
+                    scheme, String.format("%.1f", result.ok() / (double) seconds), result.errors(), threads, seconds);
+        }
+    }
+
+    private static String fetchToken(HttpClient httpClient, String baseUrl, String basic) throws Exception {
+        final HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/auth/token"))
+                .header("Authorization", basic)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        final HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        final Matcher matcher = ACCESS_TOKEN.matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find())
+            throw new IllegalStateException("Could not get a token: " + response.statusCode() + " " + response.body());
+        return matcher.group(1);
+    }
+
+    private static Result run(HttpClient httpClient, URI uri, String authorization, int threads, int seconds)
+            throws Exception {
+        final HttpRequest request = HttpRequest.newBuilder(uri).header("Authorization", authorization).GET().build();
+        final LongAdder ok = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> workers = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        try {
+                            final int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            (status == 200 ? ok : errors).increment();
+                        } catch (Exception e) {
+                            errors.increment();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return new Result(ok.sum(), errors.sum());
+    }
+
+    private record Result(long ok, long errors) {
+    }
+}
@@ -0,0 +1,104 @@
+package com.albert.springbootessentials2.client;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps {@code concurrency} requests in flight against one endpoint and prints throughput and
+ * latency percentiles. Run it once against the default build and once against the app started
+ * with {@code -Pjava21} and {@code SPRING_THREADS_VIRTUAL_ENABLED=true}, with a concurrency well
+ * above Tomcat's 200 threads (e.g. 2000), to compare thread-per-request with virtual threads.
+ * Pointing it at {@code /reactive/animes?size=20} instead compares the servlet stack with R2DBC.
+ * <p>
+ * The client is asynchronous, so it is never the one running out of threads.
+ * <p>
+ * args: [url] [concurrency] [seconds] [username] [password]
+ */
+@Log4j2
+public class ConcurrencyBenchmark {
+    private static final int MAX_SAMPLES = 4_000_000;
+
+    public static void main(String[] args) throws Exception {
+        final String url = args.length > 0 ? args[0] : "http://localhost:8080/animes?size=20";
+        final int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        final int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        final String username = args.length > 3 ? args[3] : "albert";
+        final String password = args.length > 4 ? args[4] : "1234";
+
+        final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        final HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Authorization", "Basic " + Base64.getEncoder()
+                        .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8)))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        run(httpClient, request, concurrency, Math.max(1, seconds / 4)); // warm up (JIT, pools, caches)
+        final Result result = run(httpClient, request, concurrency, seconds);
+
+        final long[] latencies = result.latenciesNanos();
+        Arrays.sort(latencies);
+        log.info("{} in flight, {}s: {} req/s, {} errors, p50 {} ms, p99 {} ms, max {} ms",
+                concurrency, seconds,
+                String.format("%.1f", latencies.length / (double) seconds),
+                result.errors(),
+                millis(percentile(latencies, 0.50)),
+                millis(percentile(latencies, 0.99)),
+                millis(latencies.length == 0 ? 0 : latencies[latencies.length - 1]));
+    }
+
+    private static Result run(HttpClient httpClient, HttpRequest request, int concurrency, int seconds)
+            throws InterruptedException {
+        final Semaphore inFlight = new Semaphore(concurrency);
+        final long[] latencies = new long[MAX_SAMPLES];
+        final AtomicInteger samples = new AtomicInteger();
+        final LongAdder errors = new LongAdder();
+        final long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+
+        while (System.nanoTime() < deadline) {
+            inFlight.acquire();
+            final long start = System.nanoTime();
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, throwable) -> {
+                        final long end = System.nanoTime();
+                        // responses finishing after the deadline belong to the drain, not to the run
+                        if (end <= deadline) {
+                            if (throwable == null && response.statusCode() == 200) {
+                                final int i = samples.getAndIncrement();
+                                if (i < MAX_SAMPLES)
+                                    latencies[i] = end - start;
+                            } else {
+                                errors.increment();
+                            }
+                        }
+                        inFlight.release();
+                    });
+        }
+        inFlight.acquire(concurrency);
+        return new Result(Arrays.copyOf(latencies, Math.min(samples.get(), MAX_SAMPLES)), errors.sum());
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0)
+            return 0;
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
+    }
+
+    private record Result(long[] latenciesNanos, long errors) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.albert.springbootessentials2.client;
+
+import java.util.List;
+
+/**
+ * The fields of a Spring Data page the clients actually use, see {@link LeanPageDecoder}.
+ */
+public record LeanPage<T>(List<T> content,
+                          int number,
+                          int size,
+                          long totalElements,
+                          int totalPages,
+                          boolean first,
+                          boolean last) {
+}
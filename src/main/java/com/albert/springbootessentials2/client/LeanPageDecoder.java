@@ -0,0 +1,79 @@
+package com.albert.springbootessentials2.client;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a serialized {@code Page<T>} token by token. The elements of {@code content} are bound
+ * straight to {@code T}, the counters are read as numbers and everything else ({@code pageable},
+ * {@code sort}, ...) is skipped without being built, unlike {@code PageableResponse}, which turns
+ * {@code pageable} and {@code sort} into {@code JsonNode} trees and then rebuilds a {@code PageImpl}.
+ */
+public class LeanPageDecoder<T> {
+    private final ObjectMapper objectMapper;
+    private final ObjectReader elementReader;
+
+    public LeanPageDecoder(ObjectMapper objectMapper, Class<T> elementType) {
+        this.objectMapper = objectMapper;
+        this.elementReader = objectMapper.readerFor(elementType);
+    }
+
+    public LeanPage<T> decode(InputStream inputStream) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(inputStream)) {
+            return decode(parser);
+        }
+    }
+
+    public LeanPage<T> decode(byte[] json) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(json)) {
+            return decode(parser);
+        }
+    }
+
+    private LeanPage<T> decode(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT)
+            throw new IOException("Expected a page object, got " + parser.currentToken());
+
+        List<T> content = List.of();
+        int number = 0;
+        int size = 0;
+        long totalElements = 0;
+        int totalPages = 0;
+        boolean first = false;
+        boolean last = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.currentName();
+            final JsonToken value = parser.nextToken();
+            switch (field) {
+                case "content" -> content = readContent(parser, value);
+                case "number" -> number = parser.getIntValue();
+                case "size" -> size = parser.getIntValue();
+                case "totalElements" -> totalElements = parser.getLongValue();
+                case "totalPages" -> totalPages = parser.getIntValue();
+                case "first" -> first = parser.getBooleanValue();
+                case "last" -> last = parser.getBooleanValue();
+                default -> parser.skipChildren(); // no-op for scalars
+            }
+        }
+        return new LeanPage<>(content, number, size, totalElements, totalPages, first, last);
+    }
+
+    private List<T> readContent(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_ARRAY)
+            throw new IOException("Expected the content array, got " + value);
+
+        final List<T> content = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            content.add(elementReader.readValue(parser));
+        }
+        return content;
+    }
+}
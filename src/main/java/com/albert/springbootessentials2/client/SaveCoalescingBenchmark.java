@@ -0,0 +1,127 @@
+package com.albert.springbootessentials2.client;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps {@code concurrency} single saves ({@code POST /animes/admin}) in flight and prints saves/s,
+ * commits/s and latency percentiles. Run it against the app started with
+ * {@code ANIME_SAVE_COALESCING_ENABLED=false}, then with {@code true} and a few windows
+ * ({@code ANIME_SAVE_COALESCING_WINDOW=0ms, 1ms, 5ms}) to see how many commits each window saves and
+ * what it adds to the latency. Every save is its own commit when coalescing is off; when it is on,
+ * commits are read from the {@code anime.save.coalesced.batch} metric.
+ * <p>
+ * Saves are inserted for real, point it at a throwaway database.
+ * <p>
+ * args: [baseUrl] [concurrency] [seconds] [username] [password]
+ */
+@Log4j2
+public class SaveCoalescingBenchmark {
+    private static final int MAX_SAMPLES = 4_000_000;
+    private static final Pattern COUNT = Pattern.compile("\"statistic\":\"COUNT\",\"value\":([0-9.E]+)");
+
+    public static void main(String[] args) throws Exception {
+        final String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        final int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        final int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        final String username = args.length > 3 ? args[3] : "albert";
+        final String password = args.length > 4 ? args[4] : "1234";
+        final String authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+
+        final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+        run(httpClient, baseUrl, authorization, concurrency, Math.max(1, seconds / 4)); // warm up
+        final long commitsBefore = coalescedCommits(httpClient, baseUrl);
+        final Result result = run(httpClient, baseUrl, authorization, concurrency, seconds);
+        final long commitsAfter = coalescedCommits(httpClient, baseUrl);
+
+        final long[] latencies = result.latenciesNanos();
+        Arrays.sort(latencies);
+        // no batches recorded means coalescing is off and every save committed on its own
+        final long commits = commitsAfter > commitsBefore ? commitsAfter - commitsBefore : latencies.length;
+        log.info("{} in flight, {}s: {} saves/s, {} commits/s ({} saves per commit), {} errors, p50 {} ms, p99 {} ms, max {} ms",
+                concurrency, seconds,
+                String.format("%.1f", latencies.length / (double) seconds),
+                String.format("%.1f", commits / (double) seconds),
+                String.format("%.1f", commits == 0 ? 0 : latencies.length / (double) commits),
+                result.errors(),
+                millis(percentile(latencies, 0.50)),
+                millis(percentile(latencies, 0.99)),
+                millis(latencies.length == 0 ? 0 : latencies[latencies.length - 1]));
+    }
+
+    private static Result run(HttpClient httpClient, String baseUrl, String authorization, int concurrency, int seconds)
+            throws InterruptedException {
+        final Semaphore inFlight = new Semaphore(concurrency);
+        final long[] latencies = new long[MAX_SAMPLES];
+        final AtomicInteger samples = new AtomicInteger();
+        final AtomicLong sequence = new AtomicLong();
+        final LongAdder errors = new LongAdder();
+        final long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+
+        while (System.nanoTime() < deadline) {
+            inFlight.acquire();
+            final HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/animes/admin"))
+                    .header("Authorization", authorization)
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(30))
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"name\":\"Coalescing benchmark " + sequence.incrementAndGet() + "\"}"))
+                    .build();
+            final long start = System.nanoTime();
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, throwable) -> {
+                        final long end = System.nanoTime();
+                        // responses finishing after the deadline belong to the drain, not to the run
+                        if (end <= deadline) {
+                            if (throwable == null && response.statusCode() == 201) {
+                                final int i = samples.getAndIncrement();
+                                if (i < MAX_SAMPLES)
+                                    latencies[i] = end - start;
+                            } else {
+                                errors.increment();
+                            }
+                        }
+                        inFlight.release();
+                    });
+        }
+        inFlight.acquire(concurrency);
+        return new Result(Arrays.copyOf(latencies, Math.min(samples.get(), MAX_SAMPLES)), errors.sum());
+    }
+
+    private static long coalescedCommits(HttpClient httpClient, String baseUrl) throws Exception {
+        final HttpResponse<String> response = httpClient.send(
+                HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/metrics/anime.save.coalesced.batch")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        final Matcher matcher = COUNT.matcher(response.body());
+        return response.statusCode() == 200 && matcher.find() ? (long) Double.parseDouble(matcher.group(1)) : 0;
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0)
+            return 0;
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
+    }
+
+    private record Result(long[] latenciesNanos, long errors) {
+    }
+}
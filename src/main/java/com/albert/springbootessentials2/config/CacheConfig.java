@@ -0,0 +1,49 @@
+package com.albert.springbootessentials2.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String ANIME_CACHE = "animes";
+    public static final String USER_CACHE = "users";
+
+    /*
+     * recordStats() is what feeds the cache.gets/cache.evictions meters that
+     * Spring Boot binds to the Prometheus registry for every cache of this manager.
+     *
+     * The transaction aware proxy delays evictions until the surrounding transaction
+     * commits, so a concurrent reader can't put the old row back in the meantime.
+     *
+     * The users cache has its own, shorter, time to live: it bounds how long a password
+     * or role change made outside the application keeps being accepted.
+     * */
+    @Bean
+    public CacheManager cacheManager(@Value("${anime.cache.maximum-size:10000}") long maximumSize,
+                                     @Value("${anime.cache.time-to-live:10m}") Duration timeToLive,
+                                     @Value("${anime.security.user-cache.maximum-size:1000}") long userMaximumSize,
+                                     @Value("${anime.security.user-cache.time-to-live:5m}") Duration userTimeToLive) {
+        final CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
+        caffeineCacheManager.registerCustomCache(ANIME_CACHE, Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build());
+        caffeineCacheManager.registerCustomCache(USER_CACHE, Caffeine.newBuilder()
+                .maximumSize(userMaximumSize)
+                .expireAfterWrite(userTimeToLive)
+                .recordStats()
+                .build());
+
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
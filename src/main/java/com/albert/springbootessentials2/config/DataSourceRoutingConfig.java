@@ -0,0 +1,101 @@
+package com.albert.springbootessentials2.config;
+
+import com.albert.springbootessentials2.datasource.ReadYourWrites;
+import com.albert.springbootessentials2.datasource.ReplicaReadCacheMode;
+import com.albert.springbootessentials2.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Read-only transactions (@Transactional(readOnly = true), the reads of Spring Data repositories) go to
+ * the anime.datasource.replicas pools, everything else to the spring.datasource one. The lazy proxy only
+ * fetches the physical connection at the first statement, once the transaction is bound to the thread,
+ * and ReplicaRoutingDataSource picks the pool from the transaction's read-only flag.
+ *
+ * Hibernate would keep a session's connection until the end of the request (open-in-view), so a write
+ * following a read in the same request could end up on a replica connection. It gives it back after
+ * every transaction here, which also means it never calls setReadOnly on it: the routing can't rely on
+ * the proxy's read-only DataSource.
+ *
+ * Replicas lag, so the reads they serve never fill the second-level cache (ReplicaReadCacheMode), and
+ * AnimeService loads what it caches itself from the primary.
+ * */
+@Configuration
+@ConditionalOnProperty(name = "anime.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites(@Value("${anime.datasource.routing.read-your-writes-window:5s}") Duration window,
+                                         @Value("${anime.datasource.routing.read-your-writes-maximum-size:10000}") long maximumSize) {
+        return new ReadYourWrites(window, maximumSize);
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(HikariDataSource primaryDataSource,
+                                                      ReadYourWrites readYourWrites,
+                                                      Environment environment,
+                                                      MeterRegistry meterRegistry,
+                                                      @Value("${anime.datasource.routing.selection:round-robin}")
+                                                      ReplicaRoutingDataSource.Selection selection) {
+        final List<HikariConfig> replicaConfigs = Binder.get(environment)
+                .bind("anime.datasource.replicas", Bindable.listOf(HikariConfig.class))
+                .orElse(List.of());
+
+        final List<HikariDataSource> replicas = new ArrayList<>(replicaConfigs.size());
+        for (int i = 0; i < replicaConfigs.size(); i++) {
+            final HikariConfig replicaConfig = replicaConfigs.get(i);
+            if (replicaConfig.getPoolName() == null)
+                replicaConfig.setPoolName("replica-" + i);
+            // same hikaricp.* meters as the primary pool, tagged with the pool name
+            replicaConfig.setMetricRegistry(meterRegistry);
+            replicaConfig.setReadOnly(true);
+            replicas.add(new HikariDataSource(replicaConfig));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, selection, readYourWrites);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaDataSource);
+    }
+
+    @Bean
+    public ReplicaReadCacheMode replicaReadCacheMode(EntityManagerFactory entityManagerFactory,
+                                                     ReplicaRoutingDataSource replicaDataSource) {
+        return new ReplicaReadCacheMode(entityManagerFactory, replicaDataSource);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
@@ -0,0 +1,33 @@
+package com.albert.springbootessentials2.config;
+
+import com.albert.springbootessentials2.metrics.SlowQueryLog;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.HibernateQueryMetrics;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+ * With hibernate.generate_statistics on, Spring Boot already binds the session factory statistics
+ * (hibernate.sessions.open, hibernate.flushes, hibernate.entities.loads, hibernate.query.executions.max, ...).
+ * The per query ones (hibernate.query.execution.total, .rows, .max, .min, tagged with the HQL) are added
+ * here, as is the statement inspector that feeds SlowQueryLog.
+ * */
+@Configuration
+public class HibernateConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer slowQueryLogInspector(SlowQueryLog slowQueryLog) {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, slowQueryLog);
+    }
+
+    @Bean
+    public MeterBinder hibernateQueryMetrics(EntityManagerFactory entityManagerFactory) {
+        return new HibernateQueryMetrics(entityManagerFactory.unwrap(SessionFactory.class),
+                "entityManagerFactory", Tags.empty());
+    }
+}
@@ -6,15 +6,19 @@ import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.factory.PasswordEncoderFactories;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.csrf.CsrfTokenRequestAttributeHandler;
 
@@ -25,6 +29,26 @@ import org.springframework.security.web.csrf.CsrfTokenRequestAttributeHandler;
 public class SecurityConfig {
 
     /*
+     * /auth/** only accepts HTTP Basic: a bearer token must never be exchanged for a fresh one,
+     * otherwise a leaked token could be renewed forever. Nothing is kept in the session either.
+     * */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain tokenFilterChain(@NotNull HttpSecurity http) throws Exception {
+        http
+                .securityMatcher("/auth/**")
+                .csrf(csrf -> csrf.disable())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authorizeHttpRequests(authorize -> authorize.anyRequest().authenticated())
+                .httpBasic(Customizer.withDefaults());
+
+        return http.build();
+    }
+
+    /*
+     * Bearer tokens from /auth/token are validated locally (signature and expiry), no user lookup and
+     * no password hashing. HTTP Basic still works, but costs a BCrypt verification on every request.
+     *
      * Postman code for automatizing CSRF token (2024):
      *      const cookieValue = pm.cookies.get('XSRF-TOKEN');
      *      pm.environment.set('xsrf-token', cookieValue);
@@ -33,7 +57,9 @@ public class SecurityConfig {
      *      X-XSRF-TOKEN : {{ xsrf-token }}
      * */
     @Bean
-    public SecurityFilterChain securityFilterChain(@NotNull HttpSecurity http) throws Exception {
+    @Order(2)
+    public SecurityFilterChain securityFilterChain(@NotNull HttpSecurity http,
+                                                   JwtAuthenticationConverter jwtAuthenticationConverter) throws Exception {
         CsrfTokenRequestAttributeHandler requestHandler = new CsrfTokenRequestAttributeHandler();
 //        By setting the csrfRequestAttributeName to null, the CsrfToken must first be loaded to determine
 //        what attribute name to use. This causes the CsrfToken to be loaded on every request.
@@ -48,9 +74,17 @@ public class SecurityConfig {
                 .authorizeHttpRequests(authorize -> authorize
                         .requestMatchers("/animes/admin/**").hasRole("ADMIN")
                         .requestMatchers("/animes/**").hasRole("USER")
+                        .requestMatchers("/reactive/animes/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/reactive/animes/**").hasRole("USER")
+                        .requestMatchers("/sharded/animes/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/sharded/animes/**").hasRole("USER")
+                        // DELETE /actuator/caches would empty every cache
+                        .requestMatchers(HttpMethod.DELETE, "/actuator/**").hasRole("ADMIN")
                         .requestMatchers("/actuator/**").permitAll()
                         .anyRequest().authenticated())
                 .httpBasic(Customizer.withDefaults())
+                .oauth2ResourceServer(oauth2 -> oauth2
+                        .jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter)))
                 .formLogin(Customizer.withDefaults());
 
         return http.build();
@@ -0,0 +1,61 @@
+package com.albert.springbootessentials2.config;
+
+import com.albert.springbootessentials2.repository.ShardedAnimeRepository;
+import com.albert.springbootessentials2.util.SnowflakeIdGenerator;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/*
+ * One Hikari pool per anime.sharding.shards entry, in order: the position of a shard in the list is
+ * part of the routing, so shards may be appended but never reordered. The shard pools are not beans,
+ * Spring Boot keeps configuring JPA, JdbcTemplate and the health checks on spring.datasource alone.
+ * */
+@Configuration
+@ConditionalOnProperty(name = "anime.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    public ShardedAnimeRepository shardedAnimeRepository(Environment environment,
+                                                         MeterRegistry meterRegistry,
+                                                         @Value("${anime.sharding.query-threads:16}") int queryThreads,
+                                                         @Value("${anime.sharding.initialize-schema:true}") boolean initializeSchema) {
+        // no default: two instances sharing one would generate the same ids
+        final Integer workerId = environment.getProperty("anime.sharding.worker-id", Integer.class);
+        if (workerId == null)
+            throw new IllegalStateException("anime.sharding.enabled needs anime.sharding.worker-id, unique per running instance");
+        final List<HikariConfig> shardConfigs = Binder.get(environment)
+                .bind("anime.sharding.shards", Bindable.listOf(HikariConfig.class))
+                .orElseThrow(() -> new IllegalStateException("anime.sharding.enabled needs anime.sharding.shards"));
+
+        final List<DataSource> shards = new ArrayList<>(shardConfigs.size());
+        for (int i = 0; i < shardConfigs.size(); i++) {
+            final HikariConfig shardConfig = shardConfigs.get(i);
+            if (shardConfig.getPoolName() == null)
+                shardConfig.setPoolName("shard-" + i);
+            shardConfig.setMetricRegistry(meterRegistry);
+            shards.add(new HikariDataSource(shardConfig));
+        }
+
+        // scatter-gather queries wait on these threads, one query per shard at a time
+        final ShardedAnimeRepository shardedAnimeRepository = new ShardedAnimeRepository(shards,
+                new SnowflakeIdGenerator(workerId),
+                Executors.newFixedThreadPool(queryThreads, new CustomizableThreadFactory("anime-shard-")));
+        if (initializeSchema)
+            shardedAnimeRepository.createSchema();
+        return shardedAnimeRepository;
+    }
+}
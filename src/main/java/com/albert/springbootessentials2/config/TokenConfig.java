@@ -0,0 +1,60 @@
+package com.albert.springbootessentials2.config;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Base64;
+
+/*
+ * HS256 signed tokens: the same secret signs (/auth/token) and validates (every request),
+ * so validation is one HMAC over the token, no database and no password hashing.
+ * Every instance behind the load balancer must share the secret.
+ * */
+@Configuration
+public class TokenConfig {
+    public static final String ROLES_CLAIM = "roles";
+
+    private final SecretKey secretKey;
+
+    public TokenConfig(@Value("${anime.security.token.secret}") String base64Secret) {
+        final byte[] secret = Base64.getDecoder().decode(base64Secret);
+        if (secret.length < 32)
+            throw new IllegalStateException("anime.security.token.secret must have at least 256 bits");
+        this.secretKey = new SecretKeySpec(secret, "HmacSHA256");
+    }
+
+    @Bean
+    public JwtEncoder jwtEncoder() {
+        return new NimbusJwtEncoder(new ImmutableSecret<>(secretKey));
+    }
+
+    @Bean
+    public JwtDecoder jwtDecoder() {
+        return NimbusJwtDecoder.withSecretKey(secretKey)
+                .macAlgorithm(MacAlgorithm.HS256)
+                .build();
+    }
+
+    // the claim already holds 'ROLE_ADMIN', 'ROLE_USER'..., so no 'SCOPE_' prefix is added
+    @Bean
+    public JwtAuthenticationConverter jwtAuthenticationConverter() {
+        final JwtGrantedAuthoritiesConverter authoritiesConverter = new JwtGrantedAuthoritiesConverter();
+        authoritiesConverter.setAuthoritiesClaimName(ROLES_CLAIM);
+        authoritiesConverter.setAuthorityPrefix("");
+
+        final JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+        converter.setJwtGrantedAuthoritiesConverter(authoritiesConverter);
+        return converter;
+    }
+}
@@ -0,0 +1,42 @@
+package com.albert.springbootessentials2.config;
+
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/*
+ * JPA and R2DBC live side by side. Spring Boot only creates the JPA transaction manager when no other
+ * TransactionManager exists, and the R2DBC one counts, so both are declared here. The JPA one stays
+ * the default for @Transactional, the reactive code uses the TransactionalOperator explicitly.
+ * */
+@Configuration
+public class TransactionConfig {
+
+    @Bean
+    @Primary
+    public JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory,
+                                                    ObjectProvider<TransactionExecutionListener> listeners) {
+        final JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        // e.g. ReplicaReadCacheMode when replica routing is enabled
+        transactionManager.setTransactionExecutionListeners(listeners.orderedStream().toList());
+        return transactionManager;
+    }
+
+    @Bean
+    public ReactiveTransactionManager reactiveTransactionManager(ConnectionFactory connectionFactory) {
+        return new R2dbcTransactionManager(connectionFactory);
+    }
+
+    @Bean
+    public TransactionalOperator reactiveTransactionalOperator(ReactiveTransactionManager reactiveTransactionManager) {
+        return TransactionalOperator.create(reactiveTransactionManager);
+    }
+}
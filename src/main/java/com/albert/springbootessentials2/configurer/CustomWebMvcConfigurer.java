@@ -1,20 +1,37 @@
 package com.albert.springbootessentials2.configurer;
 
+import com.albert.springbootessentials2.datasource.ReadYourWrites;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.util.List;
 
 @Configuration
 public class CustomWebMvcConfigurer implements WebMvcConfigurer {
+    // only there when anime.datasource.routing.enabled is true
+    private final ObjectProvider<ReadYourWrites> readYourWrites;
+
+    @Autowired
+    public CustomWebMvcConfigurer(ObjectProvider<ReadYourWrites> readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
     @Override
     public void addArgumentResolvers(@NotNull List<HandlerMethodArgumentResolver> resolvers) {
         var pageableHandler = new PageableHandlerMethodArgumentResolver();
         pageableHandler.setFallbackPageable(PageRequest.of(0, 5));
         resolvers.add(pageableHandler);
     }
+
+    @Override
+    public void addInterceptors(@NotNull InterceptorRegistry registry) {
+        readYourWrites.ifAvailable(registry::addInterceptor);
+    }
 }
@@ -2,11 +2,21 @@ package com.albert.springbootessentials2.controller;
 
 import com.albert.springbootessentials2.domain.Anime;
 import com.albert.springbootessentials2.request.EntityID;
+import com.albert.springbootessentials2.request.EntityIDs;
 import com.albert.springbootessentials2.request.AnimePOSTBody;
 import com.albert.springbootessentials2.request.AnimePUTBody;
+import com.albert.springbootessentials2.service.AnimeExportService;
+import com.albert.springbootessentials2.service.AnimeSaveCoalescer;
 import com.albert.springbootessentials2.service.AnimeService;
+import com.albert.springbootessentials2.util.AnimeCursor;
 import com.albert.springbootessentials2.util.DateUtil;
+import com.albert.springbootessentials2.wrapper.AnimeBatchResponse;
+import com.albert.springbootessentials2.wrapper.CursorPage;
+import com.albert.springbootessentials2.wrapper.DeleteManyResponse;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.validation.Valid;
 import lombok.extern.log4j.Log4j2;
@@ -14,12 +24,17 @@ import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -28,42 +43,133 @@ import java.util.List;
 @RequestMapping("/animes")
 public class AnimeController {
     private final AnimeService animeService;
+    private final AnimeExportService animeExportService;
+    private final AnimeSaveCoalescer animeSaveCoalescer;
     private final DateUtil dateUtil;
 
     @Autowired
-    public AnimeController(AnimeService animeService, DateUtil dateUtil) {
+    public AnimeController(AnimeService animeService,
+                           AnimeExportService animeExportService,
+                           AnimeSaveCoalescer animeSaveCoalescer,
+                           DateUtil dateUtil) {
         this.animeService = animeService;
+        this.animeExportService = animeExportService;
+        this.animeSaveCoalescer = animeSaveCoalescer;
         this.dateUtil = dateUtil;
     }
 
+    /*
+     * checkNotModified() compares the If-None-Match header and writes the ETag header itself.
+     * Returning null when it matches sends the 304 without running a query or Jackson.
+     * */
     @GetMapping
     @Operation(summary = "Returns a list of all Anime in a pageable way.",
-            description = "The default page and size are 0 and 20, respectively.",
-            responses = {@ApiResponse(responseCode = "200")},
+            description = "The default page and size are 0 and 20, respectively. " +
+                    "Send the ETag back in If-None-Match to get 304 while nothing changed.",
+            responses = {
+                    @ApiResponse(responseCode = "200"),
+                    @ApiResponse(responseCode = "304", description = "When no Anime changed since the ETag was issued")
+            },
             tags = {"Listing"})
-    public ResponseEntity<Page<Anime>> listAll(@ParameterObject Pageable pageable) {
+    public ResponseEntity<Page<Anime>> listAll(@ParameterObject Pageable pageable, WebRequest webRequest) {
 //        log.info(dateUtil.formatLocalDateTimeToDBPattern(LocalDateTime.now()));
+        if (webRequest.checkNotModified(animeService.listingETag()))
+            return null;
         return ResponseEntity.ok(animeService.listAll(pageable));
     }
 
+    // localhost:8080/animes/scroll?sort=name&size=50&cursor=...
+    @GetMapping(path = "/scroll")
+    @Operation(summary = "Returns a slice of Anime after the given cursor, without counting the table.",
+            description = "Send the nextCursor of the previous slice to get the next one. " +
+                    "The sort ('id' or 'name') is only read on the first slice, the cursor carries it afterwards.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "When successful"),
+                    @ApiResponse(responseCode = "400", description = "When the cursor or the sort is invalid")
+            },
+            tags = {"Listing"})
+    public ResponseEntity<CursorPage<Anime>> listAllByCursor(@RequestParam(required = false) String cursor,
+                                                             @RequestParam(defaultValue = "id") String sort,
+                                                             @RequestParam(defaultValue = "20") int size) {
+        final AnimeCursor animeCursor = cursor == null ? AnimeCursor.first(sort) : AnimeCursor.decode(cursor);
+        return ResponseEntity.ok(animeService.listAll(animeCursor, size));
+    }
+
     @GetMapping(path = "/all")
     @Operation(summary = "Returns a list of all Anime in database.",
-            responses = {@ApiResponse(responseCode = "200")},
+            responses = {
+                    @ApiResponse(responseCode = "200"),
+                    @ApiResponse(responseCode = "304", description = "When no Anime changed since the ETag was issued")
+            },
             tags = {"Listing"})
-    public ResponseEntity<List<Anime>> listAllNonPageable() {
+    public ResponseEntity<List<Anime>> listAllNonPageable(WebRequest webRequest) {
+        if (webRequest.checkNotModified(animeService.listingETag()))
+            return null;
         return ResponseEntity.ok(animeService.listAllNonPageable());
     }
 
+    @GetMapping(path = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Streams all Anime in database as newline-delimited JSON.",
+            description = "Rows are written while they are read from the database, so memory stays flat.",
+            responses = {@ApiResponse(responseCode = "200")},
+            tags = {"Listing"})
+    public ResponseEntity<StreamingResponseBody> streamAllNonPageable() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(animeExportService::writeNdjson);
+    }
+
+    // localhost:8080/animes/admin/export?format=CSV&gzip=true&afterId=1500
+    @GetMapping(path = "/admin/export")
+    @Operation(summary = "Exports the Anime catalog as NDJSON or CSV, optionally gzipped.",
+            description = "Rows are written in id order while they are read from the database. " +
+                    "After a broken transfer, send the last id received as afterId to carry on from there.",
+            responses = {@ApiResponse(responseCode = "200")},
+            tags = {"Listing"})
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "NDJSON") AnimeExportService.Format format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(defaultValue = "0") long afterId) {
+        final ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.mediaType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("animes-after-" + afterId + "." + format.extension())
+                        .build()
+                        .toString());
+        // gzip is a transfer encoding here (curl --compressed, browsers and HttpClient decode it on the fly),
+        // the container won't compress again a response that already has a Content-Encoding
+        if (gzip)
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return builder.body(outputStream -> animeExportService.export(format, gzip, afterId, outputStream));
+    }
+
     @GetMapping(path = "/{id}")
     @Operation(summary = "Searches an Anime by it's ID",
             description = "Returns 404 if Anime does not exist in database",
             responses = {
                     @ApiResponse(responseCode = "200", description = "When successful"),
+                    @ApiResponse(responseCode = "304", description = "When the Anime did not change since the ETag was issued"),
                     @ApiResponse(responseCode = "404", description = "When Anime does not exist in database")
             },
             tags = {"Searching"})
     public ResponseEntity<Anime> findById(@PathVariable long id) {
-        return ResponseEntity.ok(animeService.findById(id));
+        // the Anime comes from the cache, Spring answers a matching If-None-Match before writing the body
+        final Anime anime = animeService.findById(id);
+        return ResponseEntity.ok().eTag(eTagOf(anime)).body(anime);
+    }
+
+    // localhost:8080/animes/batch?ids=3,1,2
+    @GetMapping(path = "/batch")
+    @Operation(summary = "Searches many Anime by their IDs in one request",
+            description = "Returns the Anime found in request order and the ids that do not exist. " +
+                    "The number of ids is limited by anime.batch.max-read-ids",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "When successful, even if some ids are missing"),
+                    @ApiResponse(responseCode = "400", description = "When there are more ids than allowed")
+            },
+            tags = {"Searching"})
+    public ResponseEntity<AnimeBatchResponse> findAllById(@RequestParam long[] ids) {
+        return ResponseEntity.ok(animeService.findAllById(ids));
     }
 
     @PreAuthorize("hasRole('ADMIN')")
@@ -112,12 +218,15 @@ public class AnimeController {
             },
             tags = {"Saving"})
     public ResponseEntity<Anime> save(@RequestBody @Valid AnimePOSTBody animePOSTBody) {
-        return new ResponseEntity<>(animeService.save(animePOSTBody), HttpStatus.CREATED);
+        final Anime savedAnime = animeSaveCoalescer.isEnabled()
+                ? animeSaveCoalescer.save(animePOSTBody)
+                : animeService.save(animePOSTBody);
+        return new ResponseEntity<>(savedAnime, HttpStatus.CREATED);
     }
 
     @PostMapping("/admin/save-many")
     @Operation(summary = "Saves a list of new Anime in the database",
-            description = "Returns a list of saved Anime",
+            description = "Returns a list of saved Anime, in request order. Rows are committed in chunks",
             responses = {
                     @ApiResponse(responseCode = "201", description = "When successful"),
                     @ApiResponse(responseCode = "400", description = "When a constraint fails"),
@@ -145,30 +254,39 @@ public class AnimeController {
 
     @DeleteMapping("/admin/delete-many")
     @Operation(summary = "Deletes list of Anime matching it's IDs",
+            description = "Returns how many Anime were deleted and which IDs did not exist",
             responses = {
-                    @ApiResponse(responseCode = "204", description = "When successful"),
+                    @ApiResponse(responseCode = "200", description = "When successful"),
                     @ApiResponse(responseCode = "401", description = "When User is not logged in"),
                     @ApiResponse(responseCode = "403", description = "When User is does not have the correct credentials")
             },
             tags = {"Deleting"})
-    public ResponseEntity<Void> removeMany(@RequestBody List<EntityID> entityIDS) {
-        animeService.remove(entityIDS);
-        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    public ResponseEntity<DeleteManyResponse> removeMany(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = EntityID.class))))
+            @RequestBody EntityIDs entityIDS) {
+        return ResponseEntity.ok(animeService.remove(entityIDS));
     }
 
     @PutMapping(path = "/admin")
     @Operation(summary = "Replaces the name of an Anime",
-            description = "Uses the ID of the Anime to replace the name",
+            description = "Uses the ID of the Anime to replace the name. Send the version to reject concurrent changes",
             responses = {
                     @ApiResponse(responseCode = "204", description = "When successful"),
                     @ApiResponse(responseCode = "400", description = "When a constraint fails"),
                     @ApiResponse(responseCode = "401", description = "When User is not logged in"),
                     @ApiResponse(responseCode = "403", description = "When User is does not have the correct credentials"),
-                    @ApiResponse(responseCode = "404", description = "When Anime does not exist in database")
+                    @ApiResponse(responseCode = "404", description = "When Anime does not exist in database"),
+                    @ApiResponse(responseCode = "409", description = "When the version sent is not the current version of the Anime")
             },
             tags = {"Replacing"})
     public ResponseEntity<Void> replace(@RequestBody @Valid AnimePUTBody animePUTBody) {
         animeService.replace(animePUTBody);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
+
+    // the version changes on every replace, so the body never has to be hashed
+    private static String eTagOf(Anime anime) {
+        return "\"" + anime.getId() + "-" + anime.getVersion() + "\"";
+    }
 }
@@ -0,0 +1,66 @@
+package com.albert.springbootessentials2.controller;
+
+import com.albert.springbootessentials2.service.AnimeImportService;
+import com.albert.springbootessentials2.wrapper.ImportJobStatus;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/animes/admin/import")
+public class AnimeImportController {
+    private final AnimeImportService animeImportService;
+
+    @Autowired
+    public AnimeImportController(AnimeImportService animeImportService) {
+        this.animeImportService = animeImportService;
+    }
+
+    // the raw body is read as a stream, so nothing is parsed (or held in memory) before the job starts
+    @PostMapping(consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    @Operation(summary = "Starts importing a NDJSON or CSV file of Anime in the background",
+            description = "NDJSON: one {\"name\": \"...\"} per line. CSV: one Anime per line, with an optional header " +
+                    "containing a 'name' column. Returns the job at once, follow its Location for the progress",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "When the file was accepted"),
+                    @ApiResponse(responseCode = "401", description = "When User is not logged in"),
+                    @ApiResponse(responseCode = "403", description = "When User is does not have the correct credentials"),
+                    @ApiResponse(responseCode = "413", description = "When the file is larger than anime.import.max-upload-size"),
+                    @ApiResponse(responseCode = "503", description = "When too many imports are running or waiting")
+            },
+            tags = {"Saving"})
+    public ResponseEntity<ImportJobStatus> submit(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                  InputStream body) throws IOException {
+        final AnimeImportService.Format format = contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? AnimeImportService.Format.NDJSON
+                : AnimeImportService.Format.CSV;
+        final ImportJobStatus status = animeImportService.submit(format, body);
+
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequestUri()
+                        .path("/{id}")
+                        .buildAndExpand(status.getId())
+                        .toUri())
+                .body(status);
+    }
+
+    @GetMapping(path = "/{id}")
+    @Operation(summary = "Returns the progress of an import job",
+            description = "Rows read, imported and rejected, rows per second and the first errors",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "When successful"),
+                    @ApiResponse(responseCode = "404", description = "When the job does not exist or was forgotten")
+            },
+            tags = {"Saving"})
+    public ResponseEntity<ImportJobStatus> status(@PathVariable String id) {
+        return ResponseEntity.ok(animeImportService.status(id));
+    }
+}
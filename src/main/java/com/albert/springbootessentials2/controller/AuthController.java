@@ -0,0 +1,36 @@
+package com.albert.springbootessentials2.controller;
+
+import com.albert.springbootessentials2.service.TokenService;
+import com.albert.springbootessentials2.wrapper.TokenResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/auth")
+public class AuthController {
+    private final TokenService tokenService;
+
+    @Autowired
+    public AuthController(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    // the credentials are checked once here (HTTP Basic), later requests only send the token
+    @PostMapping("/token")
+    @Operation(summary = "Exchanges the HTTP Basic credentials for a short-lived bearer token",
+            description = "Send it as 'Authorization: Bearer <token>'. The roles inside it are fixed until it expires",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "When successful"),
+                    @ApiResponse(responseCode = "401", description = "When the credentials are wrong")
+            },
+            tags = {"Authentication"})
+    public ResponseEntity<TokenResponse> token(Authentication authentication) {
+        return ResponseEntity.ok(tokenService.issue(authentication));
+    }
+}
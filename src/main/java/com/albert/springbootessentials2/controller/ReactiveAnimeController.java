@@ -0,0 +1,120 @@
+package com.albert.springbootessentials2.controller;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.request.AnimePOSTBody;
+import com.albert.springbootessentials2.request.AnimePUTBody;
+import com.albert.springbootessentials2.service.ReactiveAnimeService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/*
+ * Same surface as AnimeController, on R2DBC. This is Spring MVC over R2DBC, not an end-to-end
+ * reactive stack: the app still runs on Tomcat with blocking Servlet I/O for reading the request
+ * and writing the response, and the security filter chain runs on the request thread. Only the
+ * database calls are non-blocking.
+ *
+ * Spring MVC handles Mono/Flux return values with Servlet async: the Tomcat thread goes back to
+ * the pool as soon as the query is sent and the response is written when the driver's event loop
+ * delivers the rows. A Flux is collected into a JSON array, it is not streamed.
+ *
+ * No load comparison against /animes has been made, so there are no numbers behind choosing
+ * one over the other yet.
+ * */
+@RestController
+@RequestMapping("/reactive/animes")
+public class ReactiveAnimeController {
+    private final ReactiveAnimeService reactiveAnimeService;
+
+    @Autowired
+    public ReactiveAnimeController(ReactiveAnimeService reactiveAnimeService) {
+        this.reactiveAnimeService = reactiveAnimeService;
+    }
+
+    @GetMapping
+    @Operation(summary = "Returns a page of Anime without blocking a request thread.",
+            description = "The default page and size are 0 and 20, respectively. No total count is returned.",
+            responses = {@ApiResponse(responseCode = "200")},
+            tags = {"Reactive"})
+    public Flux<Anime> listAll(@RequestParam(defaultValue = "0") int page,
+                               @RequestParam(defaultValue = "20") int size) {
+        return reactiveAnimeService.listAll(page, size);
+    }
+
+    @GetMapping(path = "/{id}")
+    @Operation(summary = "Searches an Anime by it's ID without blocking a request thread",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "When successful"),
+                    @ApiResponse(responseCode = "404", description = "When Anime does not exist in database")
+            },
+            tags = {"Reactive"})
+    public Mono<Anime> findById(@PathVariable long id) {
+        return reactiveAnimeService.findById(id);
+    }
+
+    @GetMapping(path = "/find")
+    @Operation(summary = "Returns list of Anime matching the provided name without blocking a request thread",
+            responses = {@ApiResponse(responseCode = "200", description = "When successful")},
+            tags = {"Reactive"})
+    public Flux<Anime> findAllByName(@RequestParam String name) {
+        return reactiveAnimeService.findAllByName(name);
+    }
+
+    @PostMapping("/admin")
+    @Operation(summary = "Saves a new Anime without blocking a request thread",
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "When successful"),
+                    @ApiResponse(responseCode = "400", description = "When a constraint fails")
+            },
+            tags = {"Reactive"})
+    public Mono<ResponseEntity<Anime>> save(@RequestBody @Valid AnimePOSTBody animePOSTBody) {
+        return reactiveAnimeService.save(animePOSTBody)
+                .map(savedAnime -> new ResponseEntity<>(savedAnime, HttpStatus.CREATED));
+    }
+
+    @PostMapping("/admin/save-many")
+    @Operation(summary = "Saves a list of new Anime in one transaction without blocking a request thread",
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "When successful"),
+                    @ApiResponse(responseCode = "400", description = "When a constraint fails")
+            },
+            tags = {"Reactive"})
+    public Mono<ResponseEntity<List<Anime>>> saveMany(@RequestBody @Valid List<AnimePOSTBody> animeList) {
+        return reactiveAnimeService.saveMany(animeList)
+                .collectList()
+                .map(savedList -> new ResponseEntity<>(savedList, HttpStatus.CREATED));
+    }
+
+    @PutMapping(path = "/admin")
+    @Operation(summary = "Replaces the name of an Anime without blocking a request thread",
+            responses = {
+                    @ApiResponse(responseCode = "204", description = "When successful"),
+                    @ApiResponse(responseCode = "404", description = "When Anime does not exist in database"),
+                    @ApiResponse(responseCode = "409", description = "When the version sent is not the current version of the Anime")
+            },
+            tags = {"Reactive"})
+    public Mono<ResponseEntity<Void>> replace(@RequestBody @Valid AnimePUTBody animePUTBody) {
+        return reactiveAnimeService.replace(animePUTBody)
+                .then(Mono.fromSupplier(() -> new ResponseEntity<Void>(HttpStatus.NO_CONTENT)));
+    }
+
+    @DeleteMapping("/admin/{id}")
+    @Operation(summary = "Deletes an Anime by it's ID without blocking a request thread",
+            responses = {
+                    @ApiResponse(responseCode = "204", description = "When successful"),
+                    @ApiResponse(responseCode = "404", description = "When Anime does not exist in database")
+            },
+            tags = {"Reactive"})
+    public Mono<ResponseEntity<Void>> remove(@PathVariable long id) {
+        return reactiveAnimeService.remove(id)
+                .then(Mono.fromSupplier(() -> new ResponseEntity<Void>(HttpStatus.NO_CONTENT)));
+    }
+}
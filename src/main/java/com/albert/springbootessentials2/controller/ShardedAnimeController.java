@@ -0,0 +1,139 @@
+package com.albert.springbootessentials2.controller;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.request.AnimePOSTBody;
+import com.albert.springbootessentials2.request.AnimePUTBody;
+import com.albert.springbootessentials2.service.ShardedAnimeService;
+import com.albert.springbootessentials2.util.AnimeCursor;
+import com.albert.springbootessentials2.wrapper.CursorPage;
+import com.albert.springbootessentials2.wrapper.ShardedAnimeResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/*
+ * Same surface as AnimeController, on the hash-sharded storage of ShardedAnimeRepository.
+ * Only there when anime.sharding.enabled is true. The Anime are returned as ShardedAnimeResponse,
+ * with their ids as strings.
+ * */
+@RestController
+@RequestMapping("/sharded/animes")
+@ConditionalOnProperty(name = "anime.sharding.enabled", havingValue = "true")
+public class ShardedAnimeController {
+    private final ShardedAnimeService shardedAnimeService;
+
+    @Autowired
+    public ShardedAnimeController(ShardedAnimeService shardedAnimeService) {
+        this.shardedAnimeService = shardedAnimeService;
+    }
+
+    @GetMapping
+    @Operation(summary = "Returns a page of Anime, in id order, gathered from every shard.",
+            description = "The default page and size are 0 and 20, respectively. " +
+                    "Only the first " + ShardedAnimeService.MAX_PAGE_WINDOW + " Anime can be paged, use /scroll past them.",
+            responses = {
+                    @ApiResponse(responseCode = "200"),
+                    @ApiResponse(responseCode = "400", description = "When the page is too deep")
+            },
+            tags = {"Sharded"})
+    public ResponseEntity<Page<ShardedAnimeResponse>> listAll(@RequestParam(defaultValue = "0") int page,
+                                                              @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(shardedAnimeService.listAll(page, size).map(ShardedAnimeResponse::of));
+    }
+
+    @GetMapping(path = "/scroll")
+    @Operation(summary = "Returns a slice of Anime after the given cursor, gathered from every shard.",
+            description = "Send the nextCursor of the previous slice to get the next one. " +
+                    "The sort ('id' or 'name') is only read on the first slice, the cursor carries it afterwards.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "When successful"),
+                    @ApiResponse(responseCode = "400", description = "When the cursor or the sort is invalid")
+            },
+            tags = {"Sharded"})
+    public ResponseEntity<CursorPage<ShardedAnimeResponse>> listAllByCursor(@RequestParam(required = false) String cursor,
+                                                                            @RequestParam(defaultValue = "id") String sort,
+                                                                            @RequestParam(defaultValue = "20") int size) {
+        final AnimeCursor animeCursor = cursor == null ? AnimeCursor.first(sort) : AnimeCursor.decode(cursor);
+        final CursorPage<Anime> slice = shardedAnimeService.listAll(animeCursor, size);
+        return ResponseEntity.ok(CursorPage.<ShardedAnimeResponse>builder()
+                .content(toResponses(slice.getContent()))
+                .size(slice.getSize())
+                .nextCursor(slice.getNextCursor())
+                .last(slice.isLast())
+                .build());
+    }
+
+    @GetMapping(path = "/{id}")
+    @Operation(summary = "Searches an Anime by it's ID on the shard holding it",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "When successful"),
+                    @ApiResponse(responseCode = "404", description = "When Anime does not exist in database")
+            },
+            tags = {"Sharded"})
+    public ResponseEntity<ShardedAnimeResponse> findById(@PathVariable long id) {
+        return ResponseEntity.ok(ShardedAnimeResponse.of(shardedAnimeService.findById(id)));
+    }
+
+    @GetMapping(path = "/find")
+    @Operation(summary = "Returns a page of the Anime matching the provided name, in id order, searched on every shard",
+            description = "The default page and size are 0 and 20, respectively. " +
+                    "Only the first " + ShardedAnimeService.MAX_PAGE_WINDOW + " matches can be paged.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "When successful"),
+                    @ApiResponse(responseCode = "400", description = "When the page is too deep")
+            },
+            tags = {"Sharded"})
+    public ResponseEntity<List<ShardedAnimeResponse>> findAllByName(@RequestParam String name,
+                                                                    @RequestParam(defaultValue = "0") int page,
+                                                                    @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(toResponses(shardedAnimeService.findAllByName(name, page, size)));
+    }
+
+    @PostMapping("/admin")
+    @Operation(summary = "Saves a new Anime on the shard of its generated ID",
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "When successful"),
+                    @ApiResponse(responseCode = "400", description = "When a constraint fails")
+            },
+            tags = {"Sharded"})
+    public ResponseEntity<ShardedAnimeResponse> save(@RequestBody @Valid AnimePOSTBody animePOSTBody) {
+        return new ResponseEntity<>(ShardedAnimeResponse.of(shardedAnimeService.save(animePOSTBody)), HttpStatus.CREATED);
+    }
+
+    @PutMapping(path = "/admin")
+    @Operation(summary = "Replaces the name of an Anime on the shard holding it",
+            responses = {
+                    @ApiResponse(responseCode = "204", description = "When successful"),
+                    @ApiResponse(responseCode = "404", description = "When Anime does not exist in database"),
+                    @ApiResponse(responseCode = "409", description = "When the version sent is not the current version of the Anime")
+            },
+            tags = {"Sharded"})
+    public ResponseEntity<Void> replace(@RequestBody @Valid AnimePUTBody animePUTBody) {
+        shardedAnimeService.replace(animePUTBody);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    @DeleteMapping("/admin/{id}")
+    @Operation(summary = "Deletes an Anime by it's ID on the shard holding it",
+            responses = {
+                    @ApiResponse(responseCode = "204", description = "When successful"),
+                    @ApiResponse(responseCode = "404", description = "When Anime does not exist in database")
+            },
+            tags = {"Sharded"})
+    public ResponseEntity<Void> remove(@PathVariable long id) {
+        shardedAnimeService.remove(id);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    private static List<ShardedAnimeResponse> toResponses(List<Anime> animeList) {
+        return animeList.stream().map(ShardedAnimeResponse::of).toList();
+    }
+}
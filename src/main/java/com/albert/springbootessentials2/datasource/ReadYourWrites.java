@@ -0,0 +1,64 @@
+package com.albert.springbootessentials2.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.security.Principal;
+import java.time.Duration;
+
+/**
+ * Keeps a user's reads on the primary for {@code anime.datasource.routing.read-your-writes-window} after
+ * each of their successful writes (any method other than GET and HEAD), so they never read a replica
+ * that hasn't caught up with their own change yet. The write requests themselves are pinned as well,
+ * their read-only lookups included. Everybody else keeps reading from the replicas.
+ * <p>
+ * The pin lives on the request thread: responses streamed from another thread (/animes/stream, exports)
+ * read from a replica.
+ */
+public class ReadYourWrites implements AsyncHandlerInterceptor {
+    private final ThreadLocal<Boolean> pinned = new ThreadLocal<>();
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWrites(Duration window, long maximumSize) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    public boolean isPinned() {
+        return pinned.get() != null;
+    }
+
+    @Override
+    public boolean preHandle(@NotNull HttpServletRequest request, @NotNull HttpServletResponse response,
+                             @NotNull Object handler) {
+        final Principal principal = request.getUserPrincipal();
+        if (!isRead(request) || (principal != null && recentWriters.getIfPresent(principal.getName()) != null))
+            pinned.set(Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(@NotNull HttpServletRequest request, @NotNull HttpServletResponse response,
+                                               @NotNull Object handler) {
+        pinned.remove();
+    }
+
+    @Override
+    public void afterCompletion(@NotNull HttpServletRequest request, @NotNull HttpServletResponse response,
+                                @NotNull Object handler, Exception ex) {
+        pinned.remove();
+        final Principal principal = request.getUserPrincipal();
+        if (!isRead(request) && principal != null && ex == null && response.getStatus() < 400)
+            recentWriters.put(principal.getName(), Boolean.TRUE);
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        return "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+    }
+}
@@ -0,0 +1,51 @@
+package com.albert.springbootessentials2.datasource;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * A replica may still hold a row that was just changed and evicted from the second-level cache, and a
+ * read-only transaction served by it would put that row (or a query result built from it) back in.
+ * Those transactions read the cache but never add to it ({@link CacheMode#GET}), only reads from the
+ * primary fill it.
+ * <p>
+ * The session outlives the transaction with open-in-view, so its cache mode is set back once the
+ * transaction ends.
+ */
+public class ReplicaReadCacheMode implements TransactionExecutionListener {
+    private final EntityManagerFactory entityManagerFactory;
+    private final ReplicaRoutingDataSource replicaDataSource;
+
+    public ReplicaReadCacheMode(EntityManagerFactory entityManagerFactory, ReplicaRoutingDataSource replicaDataSource) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.replicaDataSource = replicaDataSource;
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        if (beginFailure == null && transaction.isReadOnly() && replicaDataSource.routesToReplica())
+            setCacheMode(CacheMode.GET);
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (transaction.isReadOnly())
+            setCacheMode(CacheMode.NORMAL);
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, Throwable rollbackFailure) {
+        if (transaction.isReadOnly())
+            setCacheMode(CacheMode.NORMAL);
+    }
+
+    private void setCacheMode(CacheMode cacheMode) {
+        if (TransactionSynchronizationManager.getResource(entityManagerFactory) instanceof EntityManagerHolder holder)
+            holder.getEntityManager().unwrap(Session.class).setCacheMode(cacheMode);
+    }
+}
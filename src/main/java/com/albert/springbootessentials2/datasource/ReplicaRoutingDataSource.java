@@ -0,0 +1,110 @@
+package com.albert.springbootessentials2.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Where connections come from: one of the replica pools inside a read-only transaction, the primary
+ * for everything else, and also for read-only transactions while the current request is pinned by
+ * {@link ReadYourWrites} or when there is no replica at all. A replica that can't hand out a connection
+ * is skipped for that call and the primary serves it instead.
+ * <p>
+ * It is the target of the LazyConnectionDataSourceProxy built in DataSourceRoutingConfig, which only
+ * asks for a connection at the first statement, once the transaction is bound to the thread. The
+ * decision reads the transaction's read-only flag from TransactionSynchronizationManager: Hibernate
+ * never calls setReadOnly on a connection it releases after each transaction, so the proxy's own
+ * read-only DataSource would not be used.
+ */
+@Log4j2
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+    public enum Selection {
+        ROUND_ROBIN,
+        // fewest connections in use plus threads waiting for one, from the Hikari pool itself
+        LEAST_LOADED
+    }
+
+    private final DataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final Selection selection;
+    private final ReadYourWrites readYourWrites;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas,
+                                    Selection selection, ReadYourWrites readYourWrites) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.selection = selection;
+        this.readYourWrites = readYourWrites;
+    }
+
+    /**
+     * Whether a read-only transaction starting now on this thread would read from a replica.
+     */
+    public boolean routesToReplica() {
+        return !replicas.isEmpty() && !readYourWrites.isPinned();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || !routesToReplica())
+            return primary.getConnection();
+
+        final HikariDataSource replica = select();
+        try {
+            return replica.getConnection();
+        } catch (SQLException e) {
+            log.warn("Replica '{}' unavailable, reading from the primary: {}", replica.getPoolName(), e.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || !routesToReplica())
+            return primary.getConnection(username, password);
+        return select().getConnection(username, password);
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+
+    private HikariDataSource select() {
+        if (replicas.size() == 1)
+            return replicas.get(0);
+        return switch (selection) {
+            case ROUND_ROBIN -> replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            case LEAST_LOADED -> leastLoaded();
+        };
+    }
+
+    // ties go to the first replica listed
+    private HikariDataSource leastLoaded() {
+        HikariDataSource selected = replicas.get(0);
+        int selectedLoad = load(selected);
+        for (int i = 1; i < replicas.size() && selectedLoad > 0; i++) {
+            final int load = load(replicas.get(i));
+            if (load < selectedLoad) {
+                selected = replicas.get(i);
+                selectedLoad = load;
+            }
+        }
+        return selected;
+    }
+
+    private static int load(HikariDataSource replica) {
+        final HikariPoolMXBean pool = replica.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+    }
+}
@@ -1,18 +1,32 @@
 package com.albert.springbootessentials2.domain;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 @Data
 @Entity
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+// backs the keyset listing sorted by name
+@Table(indexes = @Index(name = "idx_anime_name_id", columnList = "name, id"))
+// second-level cache, sized and expired in ehcache.xml. Writes made outside Hibernate evict it through AnimeSecondLevelCache
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Anime.CACHE_REGION)
 public class Anime {
+    public static final String CACHE_REGION = "anime";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -21,4 +35,9 @@ public class Anime {
 //    @EqualsAndHashCode.Exclude
     @NotEmpty(message = "Name must not be empty or null")
     private String name;
+
+    // bumped by every replace, existing rows start at 0 when the column is added
+    @Version
+    @ColumnDefault("0")
+    private Long version;
 }
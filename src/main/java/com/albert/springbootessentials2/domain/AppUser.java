@@ -1,6 +1,8 @@
 package com.albert.springbootessentials2.domain;
 
+import com.albert.springbootessentials2.util.GrantedAuthorities;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -9,15 +11,13 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.stream.Collectors;
 
 @Data
 @Entity
+@EntityListeners(AppUserCacheEvictionListener.class)
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
@@ -30,11 +30,10 @@ public class AppUser implements UserDetails {
     private String password;
     private String roles;
 
+    // parsed once per distinct 'roles' value and shared, see GrantedAuthorities
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Arrays.stream(roles.split(","))
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
+        return GrantedAuthorities.fromCsv(roles);
     }
 
     @Override
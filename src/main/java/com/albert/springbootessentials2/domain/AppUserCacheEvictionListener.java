@@ -0,0 +1,36 @@
+package com.albert.springbootessentials2.domain;
+
+import com.albert.springbootessentials2.config.CacheConfig;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/*
+ * Hibernate gets this listener from the Spring context, so the CacheManager can be injected.
+ * The whole cache is cleared because a renamed user would otherwise stay cached under the old
+ * username, and user changes are rare. The transaction aware CacheManager clears after the commit.
+ * Slices without caching (e.g. @DataJpaTest) have no CacheManager, there is nothing to evict then.
+ * */
+@Component
+public class AppUserCacheEvictionListener {
+    private final ObjectProvider<CacheManager> cacheManager;
+
+    @Autowired
+    public AppUserCacheEvictionListener(ObjectProvider<CacheManager> cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void evict(AppUser appUser) {
+        cacheManager.ifAvailable(manager -> {
+            final Cache cache = manager.getCache(CacheConfig.USER_CACHE);
+            if (cache != null)
+                cache.clear();
+        });
+    }
+}
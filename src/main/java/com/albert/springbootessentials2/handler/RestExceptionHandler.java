@@ -34,6 +34,21 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
                 , HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<ExceptionDetails> handleConflictException
+            (ConflictException conflictException) {
+        return new ResponseEntity<>(
+                ExceptionDetails.builder()
+                        .timeStamp(LocalDateTime.now())
+                        .status(HttpStatus.CONFLICT.value())
+                        .title("Conflict Exception")
+                        .error(HttpStatus.CONFLICT.getReasonPhrase())
+                        .details(conflictException.getMessage())
+                        .developerMessage("Fetch the Anime again and retry with its current version.")
+                        .build()
+                , HttpStatus.CONFLICT);
+    }
+
     //    @ExceptionHandler(MethodArgumentNotValidException.class)
     @Override
     protected ResponseEntity<Object> handleMethodArgumentNotValid
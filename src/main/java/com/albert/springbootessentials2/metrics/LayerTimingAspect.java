@@ -0,0 +1,101 @@
+package com.albert.springbootessentials2.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every AnimeController handler, AnimeService method and AnimeRepository query as
+ * {@code anime.layer}, tagged with {@code layer}, {@code class}, {@code method} and {@code exception}
+ * ("none" when it returned normally). Comparing the layers of one endpoint shows where a slow
+ * request spends its time; the rest of http.server.requests is security, filters and Jackson.
+ * <p>
+ * The timers publish a percentile histogram plus the {@code anime.metrics.layer.slo} buckets, so
+ * Prometheus can aggregate quantiles across instances and count requests within each SLO exactly.
+ * See docker-data/prometheus/rules/anime-layers.yml for the recording rules.
+ * <p>
+ * Calls a class makes to its own methods don't go through the proxy and aren't timed on their own.
+ */
+@Aspect
+@Component
+public class LayerTimingAspect {
+    public static final String METRIC_NAME = "anime.layer";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean percentileHistogram;
+    private final Duration[] slo;
+    private final Duration maximumExpectedValue;
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LayerTimingAspect(MeterRegistry meterRegistry,
+                             @Value("${anime.metrics.layer.percentile-histogram:true}") boolean percentileHistogram,
+                             @Value("${anime.metrics.layer.slo:5ms,25ms,100ms,250ms,1s}") Duration[] slo,
+                             @Value("${anime.metrics.layer.maximum-expected-value:10s}") Duration maximumExpectedValue) {
+        this.meterRegistry = meterRegistry;
+        this.percentileHistogram = percentileHistogram;
+        this.slo = slo;
+        this.maximumExpectedValue = maximumExpectedValue;
+    }
+
+    @Around("execution(public * com.albert.springbootessentials2.controller.AnimeController.*(..))")
+    public Object timeController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("controller", "AnimeController", joinPoint);
+    }
+
+    @Around("execution(public * com.albert.springbootessentials2.service.AnimeService.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("service", "AnimeService", joinPoint);
+    }
+
+    // the target is the Spring Data proxy, so inherited JpaRepository methods are matched too.
+    // They are all tagged as AnimeRepository, whatever interface declares them
+    @Around("execution(public * *(..)) && target(com.albert.springbootessentials2.repository.AnimeRepository)")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("repository", "AnimeRepository", joinPoint);
+    }
+
+    private Object time(String layer, String type, ProceedingJoinPoint joinPoint) throws Throwable {
+        final Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        final long start = meterRegistry.config().clock().monotonicTime();
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            final long elapsed = meterRegistry.config().clock().monotonicTime() - start;
+            timer(new TimerKey(layer, type, method, exception)).record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // builder().register() looks the meter up again on every call, the key skips that and the tag allocation
+    private Timer timer(TimerKey key) {
+        return timers.computeIfAbsent(key, k -> Timer.builder(METRIC_NAME)
+                .description("Time spent in the controller, service and repository layers")
+                .tag("layer", k.layer())
+                .tag("class", k.type())
+                .tag("method", k.method().getName())
+                .tag("exception", k.exception())
+                .publishPercentileHistogram(percentileHistogram)
+                .serviceLevelObjectives(slo)
+                .maximumExpectedValue(maximumExpectedValue)
+                .register(meterRegistry));
+    }
+
+    private record TimerKey(String layer, String type, Method method, String exception) {
+    }
+}
@@ -0,0 +1,118 @@
+package com.albert.springbootessentials2.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Logs the AnimeRepository and AppUserRepository calls slower than {@code anime.metrics.slow-query.threshold},
+ * with every SQL statement Hibernate prepared during the call and its number of bind parameters,
+ * and counts them as {@code anime.repository.slow}. Fast calls log nothing, which is what lets the
+ * org.hibernate.SQL logging stay off.
+ * <p>
+ * The statements are collected by the {@link StatementInspector} registered in HibernateConfig, only
+ * while a repository call runs on the current thread. The values bound are never captured.
+ */
+@Log4j2
+@Aspect
+@Component
+public class SlowQueryLog implements StatementInspector {
+    private static final int MAX_STATEMENTS = 20;
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long thresholdNanos;
+    private final ThreadLocal<List<String>> statements = new ThreadLocal<>();
+
+    @Autowired
+    public SlowQueryLog(MeterRegistry meterRegistry,
+                        @Value("${anime.metrics.slow-query.enabled:true}") boolean enabled,
+                        @Value("${anime.metrics.slow-query.threshold:200ms}") Duration threshold) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.thresholdNanos = threshold.toNanos();
+    }
+
+    @Around("execution(public * *(..)) && (target(com.albert.springbootessentials2.repository.AnimeRepository)" +
+            " || target(com.albert.springbootessentials2.repository.AppUserRepository))")
+    public Object logIfSlow(ProceedingJoinPoint joinPoint) throws Throwable {
+        // a repository called from another one is reported as part of the outer call
+        if (!enabled || statements.get() != null)
+            return joinPoint.proceed();
+
+        final List<String> captured = new ArrayList<>();
+        statements.set(captured);
+        final long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            final long elapsed = System.nanoTime() - start;
+            statements.remove();
+            if (elapsed >= thresholdNanos)
+                report(joinPoint, elapsed, captured);
+        }
+    }
+
+    @Override
+    public String inspect(String sql) {
+        final List<String> captured = statements.get();
+        if (captured != null && captured.size() < MAX_STATEMENTS)
+            captured.add(sql);
+        return sql;
+    }
+
+    private void report(ProceedingJoinPoint joinPoint, long elapsedNanos, List<String> captured) {
+        final String repository = repositoryName(joinPoint);
+        final String method = joinPoint.getSignature().getName();
+
+        Counter.builder("anime.repository.slow")
+                .description("Repository calls slower than anime.metrics.slow-query.threshold")
+                .tag("repository", repository)
+                .tag("method", method)
+                .register(meterRegistry)
+                .increment();
+
+        final StringBuilder message = new StringBuilder()
+                .append("Slow query ").append(repository).append('.').append(method)
+                .append(" took ").append(Duration.ofNanos(elapsedNanos).toMillis()).append(" ms, ")
+                .append(captured.size()).append(" statement(s)");
+        for (String sql : captured) {
+            message.append("\n  [binds=").append(bindCount(sql)).append("] ").append(sql);
+        }
+        log.warn(message);
+    }
+
+    // inherited methods are declared by JpaRepository and friends, the target says which repository it was
+    private static String repositoryName(ProceedingJoinPoint joinPoint) {
+        for (Class<?> type : joinPoint.getTarget().getClass().getInterfaces()) {
+            if (type.getPackageName().startsWith("com.albert."))
+                return type.getSimpleName();
+        }
+        return joinPoint.getSignature().getDeclaringType().getSimpleName();
+    }
+
+    // JDBC placeholders outside of string literals
+    static int bindCount(String sql) {
+        int count = 0;
+        boolean inLiteral = false;
+        for (int i = 0; i < sql.length(); i++) {
+            final char c = sql.charAt(i);
+            if (c == '\'')
+                inLiteral = !inLiteral;
+            else if (c == '?' && !inLiteral)
+                count++;
+        }
+        return count;
+    }
+}
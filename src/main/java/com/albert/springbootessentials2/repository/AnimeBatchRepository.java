@@ -0,0 +1,194 @@
+package com.albert.springbootessentials2.repository;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.exception.BadRequestException;
+import com.albert.springbootessentials2.wrapper.DeleteManyResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Plain JDBC reads and writes for the bulk endpoints. {@code GenerationType.IDENTITY} makes Hibernate give up
+ * insert batching, so a JPA saveAll() costs one round trip per row.
+ */
+@Repository
+public class AnimeBatchRepository {
+    private static final String INSERT_SQL = "insert into anime (name, version) values (?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate chunkTransaction;
+    private final TransactionTemplate readTransaction;
+    private final int chunkSize;
+    private final int maxReadIds;
+
+    @Autowired
+    public AnimeBatchRepository(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${anime.batch.chunk-size:500}") int chunkSize,
+                                @Value("${anime.batch.max-read-ids:1000}") int maxReadIds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        // every chunk commits on its own, even when the caller already has a transaction
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // joins the caller's transaction if there is one, a replica serves it otherwise
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.chunkSize = chunkSize;
+        this.maxReadIds = maxReadIds;
+    }
+
+    /**
+     * Loads the ids with one {@code SELECT ... WHERE id IN (...)} per chunk of {@code anime.batch.chunk-size}
+     * ids. At most {@code anime.batch.max-read-ids} ids are accepted, the caller removes the repeated ones.
+     *
+     * @return the Anime found, by id. Ids that don't exist have no entry
+     */
+    public Map<Long, Anime> findAllById(long[] ids) throws BadRequestException {
+        if (ids.length > maxReadIds)
+            throw new BadRequestException("At most " + maxReadIds + " ids can be read at once");
+
+        final Map<Long, Anime> found = new HashMap<>(ids.length * 4 / 3 + 1);
+        final RowCallbackHandler animeCollector = rs -> {
+            final Anime anime = Anime.builder()
+                    .id(rs.getLong(1))
+                    .name(rs.getString(2))
+                    .version(rs.getLong(3))
+                    .build();
+            found.put(anime.getId(), anime);
+        };
+        readTransaction.executeWithoutResult(status -> {
+            for (int from = 0; from < ids.length; from += chunkSize) {
+                final long[] chunk = Arrays.copyOfRange(ids, from, Math.min(from + chunkSize, ids.length));
+                jdbcTemplate.query("select id, name, version from anime where id in " + inClause(chunk),
+                        idSetter(chunk), animeCollector);
+            }
+        });
+        return found;
+    }
+
+    /**
+     * Inserts the list in chunks of {@code anime.batch.chunk-size} rows, one batched statement and one
+     * commit per chunk. On MySQL 'rewriteBatchedStatements=true' turns each chunk into a multi-row insert.
+     *
+     * @param onChunkCommitted called with the saved Anime of every chunk right after it commits
+     * @return the saved Anime, with their generated ids, in the same order as {@code animeList}
+     */
+    public List<Anime> insertAll(List<Anime> animeList, Consumer<List<Anime>> onChunkCommitted) {
+        final List<Anime> savedList = new ArrayList<>(animeList.size());
+        for (int from = 0; from < animeList.size(); from += chunkSize) {
+            final List<Anime> chunk = animeList.subList(from, Math.min(from + chunkSize, animeList.size()));
+            final List<Anime> savedChunk = chunkTransaction.execute(status -> insertChunk(chunk));
+            onChunkCommitted.accept(savedChunk);
+            savedList.addAll(savedChunk);
+        }
+        return savedList;
+    }
+
+    /**
+     * Deletes the ids with one {@code DELETE ... WHERE id IN (...)} per chunk of {@code anime.batch.chunk-size}
+     * ids, each chunk in its own transaction. Nothing is loaded into the persistence context, so memory
+     * only depends on the chunk size.
+     *
+     * @param onChunkCommitted called with the ids actually deleted by every chunk right after it commits
+     */
+    public DeleteManyResponse deleteAllById(long[] ids, Consumer<long[]> onChunkCommitted) {
+        // sorted chunks walk the primary key in order, and a repeated id is only reported once
+        final long[] uniqueIds = LongStream.of(ids).sorted().distinct().toArray();
+        final LongStream.Builder missingIds = LongStream.builder();
+        long deleted = 0;
+
+        for (int from = 0; from < uniqueIds.length; from += chunkSize) {
+            final long[] chunk = Arrays.copyOfRange(uniqueIds, from, Math.min(from + chunkSize, uniqueIds.length));
+            final long[] deletedIds = chunkTransaction.execute(status -> deleteChunk(chunk));
+            onChunkCommitted.accept(deletedIds);
+
+            deleted += deletedIds.length;
+            // both arrays are sorted
+            for (long id : chunk) {
+                if (Arrays.binarySearch(deletedIds, id) < 0)
+                    missingIds.add(id);
+            }
+        }
+
+        return DeleteManyResponse.builder()
+                .deleted(deleted)
+                .missingIds(missingIds.build().toArray())
+                .build();
+    }
+
+    private static String inClause(long[] chunk) {
+        return LongStream.of(chunk).mapToObj(id -> "?").collect(Collectors.joining(",", "(", ")"));
+    }
+
+    private static PreparedStatementSetter idSetter(long[] chunk) {
+        return ps -> {
+            for (int i = 0; i < chunk.length; i++) {
+                ps.setLong(i + 1, chunk[i]);
+            }
+        };
+    }
+
+    private long[] deleteChunk(long[] chunk) {
+        final String inClause = inClause(chunk);
+        final PreparedStatementSetter idSetter = idSetter(chunk);
+
+        // the rows stay locked until the commit, so everything found here is what the delete removes
+        final long[] foundIds = new long[chunk.length];
+        final int[] foundCount = {0};
+        final RowCallbackHandler foundIdCollector = rs -> foundIds[foundCount[0]++] = rs.getLong(1);
+        jdbcTemplate.query("select id from anime where id in " + inClause + " for update", idSetter, foundIdCollector);
+
+        jdbcTemplate.update("delete from anime where id in " + inClause, idSetter);
+
+        final long[] deletedIds = Arrays.copyOf(foundIds, foundCount[0]);
+        Arrays.sort(deletedIds);
+        return deletedIds;
+    }
+
+    private List<Anime> insertChunk(List<Anime> chunk) {
+        final KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setString(1, chunk.get(i).getName());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return chunk.size();
+                    }
+                },
+                keyHolder);
+
+        // drivers come back with the keys in insert order, the column label differs (ID, GENERATED_KEY...)
+        final List<Map<String, Object>> keyList = keyHolder.getKeyList();
+        final List<Anime> savedChunk = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            final Number id = (Number) keyList.get(i).values().iterator().next();
+            savedChunk.add(Anime.builder().id(id.longValue()).name(chunk.get(i).getName()).version(0L).build());
+        }
+        return savedChunk;
+    }
+}
@@ -1,19 +1,85 @@
 package com.albert.springbootessentials2.repository;
 
 import com.albert.springbootessentials2.domain.Anime;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 @Repository
-public interface AnimeRepository extends JpaRepository<Anime, Long> {
+// declared queries get no transaction otherwise, read-only ones are what sends them to a replica (DataSourceRoutingConfig)
+@Transactional(readOnly = true)
+public interface AnimeRepository extends JpaRepository<Anime, Long>, AnimeRepositoryCustom {
+    // query cache region, only the ids are kept there, the rows come from the Anime region
+    String QUERY_CACHE_REGION = "anime-queries";
+
+    // the listing behind GET /animes, the count query is cached too
+    @Override
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)
+    })
+    Page<Anime> findAll(Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)
+    })
     @Query("""
             select a from Anime a where a.name like %:name%
             """)
     List<Anime> findAllByName(String name);
 
+    // keyset (seek) listing: the Pageable only carries the LIMIT, returning a List skips the count query
+    @Query("""
+            select a from Anime a where a.id > :id order by a.id asc
+            """)
+    List<Anime> findNextById(long id, Pageable pageable);
+
+    @Query("""
+            select a from Anime a order by a.name asc, a.id asc
+            """)
+    List<Anime> findAllOrderedByName(Pageable pageable);
+
+    @Query("""
+            select a from Anime a
+            where a.name > :name or (a.name = :name and a.id > :id)
+            order by a.name asc, a.id asc
+            """)
+    List<Anime> findNextByName(String name, long id, Pageable pageable);
+
+    // single statement writes, the affected row count tells whether the Anime existed.
+    // Hibernate evicts the whole Anime region and invalidates the cached queries after each of them
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update Anime a set a.name = :name, a.version = a.version + 1 where a.id = :id
+            """)
+    int updateName(long id, String name);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update Anime a set a.name = :name, a.version = a.version + 1
+            where a.id = :id and a.version = :version
+            """)
+    int updateNameIfVersion(long id, String name, long version);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            delete from Anime a where a.id = :id
+            """)
+    int deleteAnimeById(long id);
+
     // this delete method expects a select query which return ONE RESULT AT A TIME
 //    @Query("""
 //            select a from Anime a where a.id in :longs
@@ -0,0 +1,18 @@
+package com.albert.springbootessentials2.repository;
+
+import com.albert.springbootessentials2.domain.Anime;
+
+import java.util.stream.Stream;
+
+// fragment implemented by AnimeRepositoryCustomImpl, Spring Data merges it into AnimeRepository
+public interface AnimeRepositoryCustom {
+    /**
+     * Streams every Anime whose id is greater than {@code afterId}, ordered by id, through a
+     * forward-only JDBC cursor. Rows are detached as soon as they are read, so the persistence
+     * context stays empty no matter how big the table is, and the second-level cache is neither read
+     * nor filled, so the hot entries survive an export.
+     * <p>
+     * Must be consumed inside a transaction and closed afterwards.
+     */
+    Stream<Anime> streamAllAfter(long afterId);
+}
@@ -0,0 +1,54 @@
+package com.albert.springbootessentials2.repository;
+
+import com.albert.springbootessentials2.domain.Anime;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.stream.Stream;
+
+public class AnimeRepositoryCustomImpl implements AnimeRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+    private final int fetchSize;
+
+    /*
+     * MySQL only honours the fetch size with 'useCursorFetch=true' in the JDBC url,
+     * otherwise Connector/J reads the whole result set into memory.
+     * */
+    public AnimeRepositoryCustomImpl(@Value("${anime.stream.fetch-size:500}") int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /*
+     * A full pass would push the hot entries out of the second-level cache, so the session neither reads
+     * nor fills it until the stream is closed. The query's own cache mode hint only lasts while the
+     * cursor is opened, the rows are loaded afterwards.
+     * */
+    @Override
+    public Stream<Anime> streamAllAfter(long afterId) {
+        final Session session = entityManager.unwrap(Session.class);
+        final CacheMode previousCacheMode = session.getCacheMode();
+        session.setCacheMode(CacheMode.IGNORE);
+        try {
+            return entityManager.createQuery("""
+                            select a from Anime a where a.id > :afterId order by a.id asc
+                            """, Anime.class)
+                    .setParameter("afterId", afterId)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .getResultStream()
+                    .map(anime -> {
+                        entityManager.detach(anime);
+                        return anime;
+                    })
+                    .onClose(() -> session.setCacheMode(previousCacheMode));
+        } catch (RuntimeException e) {
+            session.setCacheMode(previousCacheMode);
+            throw e;
+        }
+    }
+}
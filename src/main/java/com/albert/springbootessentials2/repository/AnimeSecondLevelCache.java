@@ -0,0 +1,41 @@
+package com.albert.springbootessentials2.repository;
+
+import com.albert.springbootessentials2.domain.Anime;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hibernate keeps its second-level cache in step with the writes it makes itself, bulk HQL included.
+ * The JDBC batches of AnimeBatchRepository and the R2DBC writes of ReactiveAnimeRepository go around
+ * it, so their callers evict what they changed here once the write is committed.
+ */
+@Component
+public class AnimeSecondLevelCache {
+    private final Cache cache;
+
+    @Autowired
+    public AnimeSecondLevelCache(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    // after an update or a delete of the row
+    public void evict(long id) {
+        cache.evictEntityData(Anime.class, id);
+        evictQueries();
+    }
+
+    public void evictAll(long[] ids) {
+        for (long id : ids) {
+            cache.evictEntityData(Anime.class, id);
+        }
+        evictQueries();
+    }
+
+    // after an insert, the existing rows are still valid but the cached results of findAllByName and findAll aren't
+    public void evictQueries() {
+        cache.evictQueryRegion(AnimeRepository.QUERY_CACHE_REGION);
+    }
+}
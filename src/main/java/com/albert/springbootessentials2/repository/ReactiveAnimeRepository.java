@@ -0,0 +1,98 @@
+package com.albert.springbootessentials2.repository;
+
+import com.albert.springbootessentials2.domain.Anime;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The same queries as {@link AnimeRepository}, over R2DBC. Nothing here blocks: the rows are pushed
+ * by the driver's event loop, so a slow database or client holds no thread.
+ */
+@Repository
+public class ReactiveAnimeRepository {
+    private static final String COLUMNS = "select id, name, version from anime";
+
+    private final DatabaseClient databaseClient;
+
+    @Autowired
+    public ReactiveAnimeRepository(ConnectionFactory connectionFactory) {
+        this.databaseClient = DatabaseClient.create(connectionFactory);
+    }
+
+    public Flux<Anime> findAll(long offset, int limit) {
+        return databaseClient.sql(COLUMNS + " order by id limit :limit offset :offset")
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map(ReactiveAnimeRepository::toAnime)
+                .all();
+    }
+
+    public Mono<Anime> findById(long id) {
+        return databaseClient.sql(COLUMNS + " where id = :id")
+                .bind("id", id)
+                .map(ReactiveAnimeRepository::toAnime)
+                .one();
+    }
+
+    public Flux<Anime> findAllByName(String name) {
+        return databaseClient.sql(COLUMNS + " where name like :name order by id")
+                .bind("name", "%" + name + "%")
+                .map(ReactiveAnimeRepository::toAnime)
+                .all();
+    }
+
+    public Mono<Anime> insert(String name) {
+        return databaseClient.sql("insert into anime (name, version) values (:name, 0)")
+                .bind("name", name)
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .map(id -> Anime.builder().id(id).name(name).version(0L).build());
+    }
+
+    // the row counts play the same role as in AnimeRepository's @Modifying queries
+    public Mono<Long> updateName(long id, String name) {
+        return databaseClient.sql("update anime set name = :name, version = version + 1 where id = :id")
+                .bind("name", name)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> updateNameIfVersion(long id, String name, long version) {
+        return databaseClient.sql("update anime set name = :name, version = version + 1 where id = :id and version = :version")
+                .bind("name", name)
+                .bind("id", id)
+                .bind("version", version)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Boolean> existsById(long id) {
+        return databaseClient.sql("select 1 from anime where id = :id")
+                .bind("id", id)
+                .map(row -> Boolean.TRUE)
+                .first()
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    public Mono<Long> deleteById(long id) {
+        return databaseClient.sql("delete from anime where id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static Anime toAnime(Readable row) {
+        return Anime.builder()
+                .id(row.get("id", Long.class))
+                .name(row.get("name", String.class))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+}
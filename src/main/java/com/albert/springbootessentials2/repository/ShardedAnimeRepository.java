@@ -0,0 +1,246 @@
+package com.albert.springbootessentials2.repository;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.util.AnimeCursor;
+import com.albert.springbootessentials2.util.SnowflakeIdGenerator;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * The anime table spread over several databases. Every row lives on the shard picked by a hash of its id,
+ * so the single-id operations touch one shard only. Listings and name searches run on every shard in
+ * parallel and merge the sorted results, each shard returning at most as many rows as the page needs.
+ * <p>
+ * The name column is compared byte for byte ({@code utf8mb4_0900_bin}, code point order) instead of with
+ * MySQL's default case and accent insensitive collation, so the order every shard sorts and seeks in is
+ * the order {@link #merge} can reproduce. H2 shards need MySQL mode to accept the collation.
+ * <p>
+ * Ids come from a {@link SnowflakeIdGenerator}, never from the shards. The shard of an id depends on
+ * the number of shards: adding one means moving the rows whose shard changed first.
+ * Built by ShardingConfig when {@code anime.sharding.enabled} is true.
+ */
+public class ShardedAnimeRepository implements AutoCloseable {
+    public static final String SCHEMA = """
+            create table if not exists anime (
+                id bigint not null primary key,
+                name varchar(255) collate utf8mb4_0900_bin not null,
+                version bigint not null default 0
+            )""";
+    private static final String COLUMNS = "select id, name, version from anime";
+    private static final RowMapper<Anime> ANIME_ROW_MAPPER = (rs, rowNum) -> Anime.builder()
+            .id(rs.getLong(1))
+            .name(rs.getString(2))
+            .version(rs.getLong(3))
+            .build();
+    private static final Comparator<Anime> BY_ID = Comparator.comparing(Anime::getId);
+    // String.compareTo compares UTF-16 units, which puts U+E000..U+FFFF after the supplementary characters
+    private static final Comparator<String> CODE_POINT_ORDER = (a, b) -> {
+        final int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; ) {
+            final int codePointA = a.codePointAt(i);
+            final int codePointB = b.codePointAt(i);
+            if (codePointA != codePointB)
+                return Integer.compare(codePointA, codePointB);
+            i += Character.charCount(codePointA);
+        }
+        return Integer.compare(a.length(), b.length());
+    };
+    private static final Comparator<Anime> BY_NAME = Comparator.comparing(Anime::getName, CODE_POINT_ORDER)
+            .thenComparing(BY_ID);
+
+    private final List<DataSource> dataSources;
+    private final List<JdbcTemplate> shards;
+    private final SnowflakeIdGenerator idGenerator;
+    private final ExecutorService executorService;
+
+    public ShardedAnimeRepository(List<DataSource> dataSources, SnowflakeIdGenerator idGenerator,
+                                  ExecutorService executorService) {
+        if (dataSources.isEmpty())
+            throw new IllegalArgumentException("At least one shard is needed");
+        this.dataSources = List.copyOf(dataSources);
+        this.shards = dataSources.stream().map(JdbcTemplate::new).toList();
+        this.idGenerator = idGenerator;
+        this.executorService = executorService;
+    }
+
+    public void createSchema() {
+        scatter(shard -> {
+            shard.execute(SCHEMA);
+            return null;
+        });
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    /**
+     * The murmur3 finalizer spreads the ids first: consecutive snowflake ids differ in their low
+     * (sequence) bits only, which a plain modulo would send to the same few shards.
+     */
+    public int shardOf(long id) {
+        long hash = id;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (int) Math.floorMod(hash, (long) shards.size());
+    }
+
+    public Anime insert(String name) {
+        final long id = idGenerator.nextId();
+        shard(id).update("insert into anime (id, name, version) values (?, ?, 0)", id, name);
+        return Anime.builder().id(id).name(name).version(0L).build();
+    }
+
+    public Optional<Anime> findById(long id) {
+        return shard(id).query(COLUMNS + " where id = ?", ANIME_ROW_MAPPER, id).stream().findFirst();
+    }
+
+    public boolean existsById(long id) {
+        return !shard(id).queryForList("select 1 from anime where id = ?", Integer.class, id).isEmpty();
+    }
+
+    // the row counts play the same role as in AnimeRepository's @Modifying queries
+    public int updateName(long id, String name) {
+        return shard(id).update("update anime set name = ?, version = version + 1 where id = ?", name, id);
+    }
+
+    public int updateNameIfVersion(long id, String name, long version) {
+        return shard(id).update("update anime set name = ?, version = version + 1 where id = ? and version = ?",
+                name, id, version);
+    }
+
+    public int deleteById(long id) {
+        return shard(id).update("delete from anime where id = ?", id);
+    }
+
+    /**
+     * Page of the matches in id order, found like {@link #findAll}: every shard returns its first
+     * {@code (page + 1) * size} matches, never its whole result. {@code %} and {@code _} in the name
+     * match themselves, not any characters.
+     */
+    public List<Anime> findAllByName(String name, int page, int size) {
+        final long offset = (long) page * size;
+        final int perShardLimit = Math.toIntExact(offset + size);
+        final List<List<Anime>> results = scatter(shard -> shard.query(COLUMNS + " where name like ? escape '!' order by id limit ?",
+                ANIME_ROW_MAPPER, "%" + escapeLike(name) + "%", perShardLimit));
+        return merge(results, BY_ID, offset, size);
+    }
+
+    // '!' rather than a backslash, which MySQL string literals would need escaped again
+    static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    /**
+     * Page of the listing in id order. Every shard returns its first {@code (page + 1) * size} rows and
+     * counts its table; deep pages grow with the page number on every shard, prefer {@link #findNext}.
+     */
+    public Page<Anime> findAll(int page, int size) {
+        final long offset = (long) page * size;
+        final int perShardLimit = Math.toIntExact(offset + size);
+        final List<List<Anime>> results = scatter(shard ->
+                shard.query(COLUMNS + " order by id limit ?", ANIME_ROW_MAPPER, perShardLimit));
+        final long total = scatter(shard -> shard.queryForObject("select count(*) from anime", Long.class))
+                .stream()
+                .mapToLong(Long::longValue)
+                .sum();
+        return new PageImpl<>(merge(results, BY_ID, offset, size), PageRequest.of(page, size), total);
+    }
+
+    /**
+     * Keyset listing: the {@code limit} Anime after the cursor, in the cursor's sort. Every shard
+     * seeks past the cursor on its own, so the cost doesn't depend on how far the client has read.
+     */
+    public List<Anime> findNext(AnimeCursor cursor, int limit) {
+        final List<List<Anime>> results = switch (cursor.sortKey()) {
+            case ID -> scatter(shard -> shard.query(COLUMNS + " where id > ? order by id limit ?",
+                    ANIME_ROW_MAPPER, cursor.lastId(), limit));
+            case NAME -> cursor.isFirst()
+                    ? scatter(shard -> shard.query(COLUMNS + " order by name, id limit ?", ANIME_ROW_MAPPER, limit))
+                    : scatter(shard -> shard.query(COLUMNS
+                            + " where name > ? or (name = ? and id > ?) order by name, id limit ?",
+                    ANIME_ROW_MAPPER, cursor.lastName(), cursor.lastName(), cursor.lastId(), limit));
+        };
+        return merge(results, cursor.sortKey() == AnimeCursor.SortKey.NAME ? BY_NAME : BY_ID, 0, limit);
+    }
+
+    @Override
+    public void close() throws Exception {
+        executorService.shutdown();
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof AutoCloseable closeable)
+                closeable.close();
+        }
+    }
+
+    private JdbcTemplate shard(long id) {
+        return shards.get(shardOf(id));
+    }
+
+    // runs the query on every shard at once and waits for all of them, in shard order
+    private <T> List<T> scatter(Function<JdbcTemplate, T> query) {
+        final List<CompletableFuture<T>> futures = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> query.apply(shard), executorService))
+                .toList();
+        final List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof DataAccessException dataAccessException)
+                    throw dataAccessException;
+                throw e;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * k-way merge of lists already sorted by {@code comparator}: skips {@code skip} elements and
+     * returns the following {@code limit} ones, without sorting the whole union.
+     */
+    static List<Anime> merge(List<List<Anime>> sortedLists, Comparator<Anime> comparator, long skip, int limit) {
+        final PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(sortedLists.size(), 1),
+                (a, b) -> comparator.compare(a.anime(), b.anime()));
+        for (List<Anime> list : sortedLists) {
+            final Iterator<Anime> iterator = list.iterator();
+            if (iterator.hasNext())
+                heads.add(new Head(iterator.next(), iterator));
+        }
+
+        final List<Anime> merged = new ArrayList<>();
+        long skipped = 0;
+        while (!heads.isEmpty() && merged.size() < limit) {
+            final Head head = heads.poll();
+            if (skipped < skip)
+                skipped++;
+            else
+                merged.add(head.anime());
+            if (head.rest().hasNext())
+                heads.add(new Head(head.rest().next(), head.rest()));
+        }
+        return merged;
+    }
+
+    private record Head(Anime anime, Iterator<Anime> rest) {
+    }
+}
@@ -4,6 +4,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -21,4 +22,7 @@ public class AnimePUTBody {
     @NotEmpty(message = "The name must not be empty")
     @Schema(description = "The new name of the Anime", example = "Jujutsu Kaisen")
     private String name;
+    @PositiveOrZero(message = "The version must not be negative")
+    @Schema(description = "The version of the Anime being replaced. When present, the replace fails if the Anime was changed in the meantime")
+    private Long version;
 }
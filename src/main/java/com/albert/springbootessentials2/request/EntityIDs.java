@@ -0,0 +1,68 @@
+package com.albert.springbootessentials2.request;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Same JSON as a {@code List<EntityID>} ({@code [{"id": 1}, {"id": 2}]}, bare numbers are accepted too),
+ * read straight into a long[] so a huge list doesn't cost one EntityID and one Long per id.
+ */
+@Getter
+@AllArgsConstructor
+@JsonDeserialize(using = EntityIDs.Deserializer.class)
+public class EntityIDs {
+    private long[] ids;
+
+    public static class Deserializer extends StdDeserializer<EntityIDs> {
+        public Deserializer() {
+            super(EntityIDs.class);
+        }
+
+        @Override
+        public EntityIDs deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (!parser.isExpectedStartArrayToken())
+                return (EntityIDs) context.handleUnexpectedToken(EntityIDs.class, parser);
+
+            long[] ids = new long[64];
+            int size = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                final Long id = switch (token) {
+                    case VALUE_NUMBER_INT -> Long.valueOf(parser.getLongValue());
+                    case START_OBJECT -> readEntityID(parser, context);
+                    default -> (Long) context.handleUnexpectedToken(Long.class, parser);
+                };
+                if (id == null)
+                    continue;
+                if (size == ids.length)
+                    ids = Arrays.copyOf(ids, size * 2);
+                ids[size++] = id;
+            }
+            return new EntityIDs(Arrays.copyOf(ids, size));
+        }
+
+        // {"id": 1}, unknown fields are skipped and {"id": null} is ignored like before
+        private Long readEntityID(JsonParser parser, DeserializationContext context) throws IOException {
+            Long id = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.currentName();
+                final JsonToken value = parser.nextToken();
+                if ("id".equals(field) && value == JsonToken.VALUE_NUMBER_INT)
+                    id = parser.getLongValue();
+                else if ("id".equals(field) && value != JsonToken.VALUE_NULL)
+                    return (Long) context.handleUnexpectedToken(Long.class, parser);
+                else
+                    parser.skipChildren();
+            }
+            return id;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.albert.springbootessentials2.search;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.repository.AnimeRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-memory trigram inverted index over {@link Anime} names. Answers the same substring
+ * queries as {@link AnimeRepository#findAllByName(String)} without scanning the table.
+ * <p>
+ * Returns an empty Optional whenever the JPQL query should be used instead: index disabled
+ * or not built yet, query shorter than a trigram or containing a {@code like} wildcard or escape
+ * ({@code %}, {@code _}, {@code \}), catalog below {@code fallback-below-rows} or more than
+ * {@code max-candidates} matches (a scan is cheaper than a huge IN list).
+ * <p>
+ * Names and queries are compared after {@link #normalize(String)}, which ignores case and accents like
+ * the catalog's {@code utf8mb4_unicode_ci} collation does. The collation also folds a few multi-letter
+ * expansions ({@code ß} and {@code ss}, ligatures) that the index keeps apart.
+ */
+@Log4j2
+@Component
+public class AnimeNameIndex {
+    static final int GRAM_SIZE = 3;
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final AnimeRepository animeRepository;
+    private final boolean enabled;
+    private final long fallbackBelowRows;
+    private final int maxCandidates;
+    // not read-only, so with replica routing the rebuild never reads a lagging replica
+    private final TransactionTemplate primaryReadTransaction;
+
+    // every mutation goes through this lock, readers only see the volatile reference
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Postings postings = new Postings();
+    private volatile boolean ready;
+    // changes committed while a rebuild is reading the table, replayed on the new postings
+    private List<Change> journal;
+
+    @Autowired
+    public AnimeNameIndex(AnimeRepository animeRepository,
+                          @Value("${anime.search.index.enabled:true}") boolean enabled,
+                          @Value("${anime.search.index.fallback-below-rows:0}") long fallbackBelowRows,
+                          @Value("${anime.search.index.max-candidates:1000}") int maxCandidates,
+                          PlatformTransactionManager transactionManager) {
+        this.animeRepository = animeRepository;
+        this.enabled = enabled;
+        this.fallbackBelowRows = fallbackBelowRows;
+        this.maxCandidates = maxCandidates;
+        this.primaryReadTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Returns the ids (ascending) of every Anime whose name contains {@code name}, ignoring case and accents,
+     * or an empty Optional when the caller must fall back to the database query.
+     */
+    public Optional<List<Long>> findIds(String name) {
+        if (!enabled || !ready || name == null || name.length() < GRAM_SIZE || hasLikeWildcard(name)) {
+            return Optional.empty();
+        }
+
+        final Postings current = postings;
+        if (current.size() < fallbackBelowRows) {
+            return Optional.empty();
+        }
+
+        final List<Long> ids = current.search(normalize(name));
+        return ids.size() > maxCandidates ? Optional.empty() : Optional.of(ids);
+    }
+
+    public void put(long id, String name) {
+        applyAfterCommit(new Change(id, name));
+    }
+
+    public void remove(long id) {
+        applyAfterCommit(new Change(id, null));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // safety net for rows written behind the service's back (other instances, manual SQL)
+    @Scheduled(initialDelayString = "${anime.search.index.refresh-interval:PT15M}",
+            fixedDelayString = "${anime.search.index.refresh-interval:PT15M}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        writeLock.lock();
+        try {
+            journal = new ArrayList<>();
+        } finally {
+            writeLock.unlock();
+        }
+
+        // the current postings keep answering queries until the swap, so a rebuild peaks at two indexes;
+        // the rows themselves are streamed and detached one at a time instead of loading the whole table
+        final Postings fresh = new Postings();
+        try {
+            // rows missing from a lagging replica would stay unsearchable until the next rebuild
+            primaryReadTransaction.executeWithoutResult(status -> {
+                try (Stream<Anime> animeStream = animeRepository.streamAllAfter(0L)) {
+                    animeStream.forEach(anime -> fresh.put(anime.getId(), anime.getName()));
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not build the anime name index, keeping the previous one", e);
+            writeLock.lock();
+            try {
+                journal = null;
+            } finally {
+                writeLock.unlock();
+            }
+            return;
+        }
+
+        writeLock.lock();
+        try {
+            journal.forEach(change -> change.applyTo(fresh));
+            journal = null;
+            postings = fresh;
+            ready = true;
+        } finally {
+            writeLock.unlock();
+        }
+        log.info("Anime name index built with {} entries", fresh.size());
+    }
+
+    private void applyAfterCommit(Change change) {
+        if (!enabled) {
+            return;
+        }
+
+        // a rolled back save must never become searchable
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private void apply(Change change) {
+        writeLock.lock();
+        try {
+            change.applyTo(postings);
+            if (journal != null) {
+                journal.add(change);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Lower case without accents, "Pokémon" and "POKEMON" both become "pokemon".
+     */
+    public static String normalize(String name) {
+        final String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    // the database reads them as patterns, only the query can answer those
+    private static boolean hasLikeWildcard(String name) {
+        return name.indexOf('%') >= 0 || name.indexOf('_') >= 0 || name.indexOf('\\') >= 0;
+    }
+
+    static Set<String> grams(String normalized) {
+        final Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    private record Change(long id, String name) {
+        void applyTo(Postings postings) {
+            if (name == null) {
+                postings.remove(id);
+            } else {
+                postings.put(id, name);
+            }
+        }
+    }
+
+    private static final class Postings {
+        private final Map<String, Set<Long>> idsByGram = new ConcurrentHashMap<>();
+        private final Map<Long, String> namesById = new ConcurrentHashMap<>();
+
+        int size() {
+            return namesById.size();
+        }
+
+        void put(long id, String name) {
+            remove(id);
+            final String normalized = normalize(name);
+            namesById.put(id, normalized);
+            for (String gram : grams(normalized)) {
+                idsByGram.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+
+        void remove(long id) {
+            final String normalized = namesById.remove(id);
+            if (normalized == null) {
+                return;
+            }
+            for (String gram : grams(normalized)) {
+                final Set<Long> ids = idsByGram.get(gram);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        idsByGram.remove(gram, ids);
+                    }
+                }
+            }
+        }
+
+        List<Long> search(String normalizedQuery) {
+            final List<Set<Long>> postingLists = new ArrayList<>();
+            for (String gram : grams(normalizedQuery)) {
+                final Set<Long> ids = idsByGram.get(gram);
+                if (ids == null) {
+                    return Collections.emptyList();
+                }
+                postingLists.add(ids);
+            }
+            // walk the rarest trigram and probe the others
+            postingLists.sort(Comparator.comparingInt(Set::size));
+
+            final List<Long> result = new ArrayList<>();
+            candidates:
+            for (Long id : postingLists.get(0)) {
+                for (int i = 1; i < postingLists.size(); i++) {
+                    if (!postingLists.get(i).contains(id)) {
+                        continue candidates;
+                    }
+                }
+                // trigrams match in any order, the substring check removes false positives
+                final String normalized = namesById.get(id);
+                if (normalized != null && normalized.contains(normalizedQuery)) {
+                    result.add(id);
+                }
+            }
+            Collections.sort(result);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.albert.springbootessentials2.service;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.util.CsvLines;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the catalog while it is read from the database cursor, in id order, so a transfer
+ * that breaks can carry on from the last id received instead of starting over.
+ * <p>
+ * Bytes (as sent, after gzip) and rows are counted in {@code anime.export.bytes} and
+ * {@code anime.export.rows}, tagged by format. Their rate is the bytes/s and rows/s of the exports
+ * running; {@code anime.export} times each one.
+ */
+@Log4j2
+@Service
+public class AnimeExportService {
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public String mediaType() {
+            return mediaType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    private static final String CSV_HEADER = "id,name,version\n";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final AnimeService animeService;
+    private final ObjectWriter animeWriter;
+    private final MeterRegistry meterRegistry;
+    private final Map<Format, Counter> rowCounters = new EnumMap<>(Format.class);
+    private final Map<Format, Counter> byteCounters = new EnumMap<>(Format.class);
+
+    @Autowired
+    public AnimeExportService(AnimeService animeService, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.animeService = animeService;
+        // flushing after every row would turn each Anime into its own tiny chunk on the wire
+        this.animeWriter = objectMapper.writerFor(Anime.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.meterRegistry = meterRegistry;
+
+        for (Format format : Format.values()) {
+            final String tag = format.name().toLowerCase(Locale.ROOT);
+            rowCounters.put(format, Counter.builder("anime.export.rows")
+                    .description("Anime written by exports")
+                    .tag("format", tag)
+                    .register(meterRegistry));
+            byteCounters.put(format, Counter.builder("anime.export.bytes")
+                    .description("Bytes sent by exports, after compression")
+                    .baseUnit("bytes")
+                    .tag("format", tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Writes every Anime as newline-delimited JSON while it is read from the database cursor.
+     */
+    public void writeNdjson(OutputStream outputStream) throws IOException {
+        export(Format.NDJSON, false, 0L, outputStream);
+    }
+
+    /**
+     * Writes every Anime with id greater than {@code afterId}. The output stream is flushed but not
+     * closed, the servlet container owns it.
+     */
+    public void export(Format format, boolean gzip, long afterId, OutputStream outputStream) throws IOException {
+        final CountingOutputStream counted = new CountingOutputStream(outputStream, byteCounters.get(format));
+        final Counter rows = rowCounters.get(format);
+        final long start = System.nanoTime();
+        String outcome = "aborted";
+
+        // closing only flushes the response stream, but it frees the native memory of the gzip Deflater even on failure
+        try (OutputStream target = gzip ? new GZIPOutputStream(counted, BUFFER_SIZE) : counted) {
+            if (format == Format.CSV)
+                writeCsv(target, afterId, rows);
+            else
+                writeNdjson(target, afterId, rows);
+            if (target instanceof GZIPOutputStream gzipOutputStream)
+                gzipOutputStream.finish();
+            counted.flush();
+            outcome = "completed";
+        } finally {
+            final long nanos = System.nanoTime() - start;
+            Timer.builder("anime.export")
+                    .tag("format", format.name().toLowerCase(Locale.ROOT))
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+            log.info("Export {} {} after id {}: {} bytes in {} ms", format, outcome, afterId,
+                    counted.count(), TimeUnit.NANOSECONDS.toMillis(nanos));
+        }
+    }
+
+    private void writeNdjson(OutputStream outputStream, long afterId, Counter rows) throws IOException {
+        try (JsonGenerator generator = animeWriter.createGenerator(outputStream)) {
+            // the servlet container owns the response stream
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            streamAll(afterId, anime -> {
+                try {
+                    animeWriter.writeValue(generator, anime);
+                    generator.writeRaw('\n');
+                    rows.increment();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private void writeCsv(OutputStream outputStream, long afterId, Counter rows) throws IOException {
+        // not closed: that would close the response stream too
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(CSV_HEADER);
+        streamAll(afterId, anime -> {
+            try {
+                writer.write(String.valueOf(anime.getId()));
+                writer.write(',');
+                writer.write(CsvLines.quote(anime.getName()));
+                writer.write(',');
+                writer.write(String.valueOf(anime.getVersion()));
+                writer.write('\n');
+                rows.increment();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    private void streamAll(long afterId, Consumer<Anime> consumer) throws IOException {
+        try {
+            animeService.streamAll(afterId, consumer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private final Counter bytes;
+        private long count;
+
+        CountingOutputStream(OutputStream outputStream, Counter bytes) {
+            super(outputStream);
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            add(1);
+        }
+
+        // FilterOutputStream would write byte by byte
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            add(len);
+        }
+
+        private void add(int length) {
+            count += length;
+            bytes.increment(length);
+        }
+
+        long count() {
+            return count;
+        }
+
+        // the servlet container owns the response stream
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.albert.springbootessentials2.service;
+
+import com.albert.springbootessentials2.wrapper.ImportJobStatus;
+import com.albert.springbootessentials2.wrapper.ImportJobStatus.State;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one import. Only the worker thread writes, the status endpoint reads at any time.
+ */
+class AnimeImportJob {
+    private static final int MAX_ERRORS = 100;
+
+    private final String id;
+    private final AnimeImportService.Format format;
+    private final Instant submittedAt = Instant.now();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsImported = new AtomicLong();
+    private final AtomicLong rowsRejected = new AtomicLong();
+    private final List<String> errors = new CopyOnWriteArrayList<>();
+    private volatile State state = State.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    AnimeImportJob(String id, AnimeImportService.Format format) {
+        this.id = id;
+        this.format = format;
+    }
+
+    String id() {
+        return id;
+    }
+
+    AnimeImportService.Format format() {
+        return format;
+    }
+
+    void start() {
+        startedAt = Instant.now();
+        state = State.RUNNING;
+    }
+
+    void read() {
+        rowsRead.incrementAndGet();
+    }
+
+    void imported(int rows) {
+        rowsImported.addAndGet(rows);
+    }
+
+    void reject(long lineNumber, String reason) {
+        rowsRejected.incrementAndGet();
+        addError("line " + lineNumber + ": " + reason);
+    }
+
+    void complete() {
+        finishedAt = Instant.now();
+        state = State.COMPLETED;
+    }
+
+    void fail(String reason) {
+        // always kept, even past MAX_ERRORS
+        errors.add(reason);
+        finishedAt = Instant.now();
+        state = State.FAILED;
+    }
+
+    boolean finishedBefore(Instant instant) {
+        final Instant finished = finishedAt;
+        return finished != null && finished.isBefore(instant);
+    }
+
+    ImportJobStatus status() {
+        final Instant started = startedAt;
+        final Instant finished = finishedAt;
+        final long imported = rowsImported.get();
+        double rowsPerSecond = 0;
+        if (started != null) {
+            final long millis = Duration.between(started, finished != null ? finished : Instant.now()).toMillis();
+            rowsPerSecond = millis == 0 ? 0 : imported * 1000.0 / millis;
+        }
+
+        return ImportJobStatus.builder()
+                .id(id)
+                .state(state)
+                .format(format.name())
+                .rowsRead(rowsRead.get())
+                .rowsImported(imported)
+                .rowsRejected(rowsRejected.get())
+                .rowsPerSecond(rowsPerSecond)
+                .errors(List.copyOf(errors))
+                .submittedAt(submittedAt)
+                .startedAt(started)
+                .finishedAt(finished)
+                .build();
+    }
+
+    private void addError(String error) {
+        if (errors.size() < MAX_ERRORS)
+            errors.add(error);
+    }
+}
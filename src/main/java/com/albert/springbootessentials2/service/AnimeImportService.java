@@ -0,0 +1,278 @@
+package com.albert.springbootessentials2.service;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.exception.NotFoundException;
+import com.albert.springbootessentials2.mapper.AnimeMapper;
+import com.albert.springbootessentials2.request.AnimePOSTBody;
+import com.albert.springbootessentials2.util.CsvLines;
+import com.albert.springbootessentials2.wrapper.ImportJobStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * Imports NDJSON ({@code {"name": "..."}} per line) or CSV (one row per line, optional header with a
+ * {@code name} column) uploads of any size.
+ * <p>
+ * The upload is spooled to a temporary file and the request returns a job id straight away. A worker
+ * then reads the file line by line, validates every row and inserts the valid ones in chunks of
+ * {@code anime.batch.chunk-size}, one commit per chunk. The reader only moves on when the chunk is
+ * written, so memory and lock time depend on the chunk size, not on the file. Invalid rows are
+ * counted and reported, they don't stop the job.
+ * <p>
+ * Jobs live in this instance's memory and are forgotten {@code anime.import.retention} after they end.
+ */
+@Log4j2
+@Service
+public class AnimeImportService {
+    public enum Format {NDJSON, CSV}
+
+    private static final String NAME_COLUMN = "name";
+
+    private final AnimeService animeService;
+    private final AnimeMapper animeMapper;
+    private final ObjectReader bodyReader;
+    private final Validator validator;
+    private final int chunkSize;
+    private final long maxUploadBytes;
+    private final Duration retention;
+    private final ThreadPoolTaskExecutor executor;
+    // one per job running or waiting, taken before the upload is read
+    private final Semaphore slots;
+    private final Map<String, AnimeImportJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AnimeImportService(AnimeService animeService,
+                              AnimeMapper animeMapper,
+                              ObjectMapper objectMapper,
+                              Validator validator,
+                              @Value("${anime.batch.chunk-size:500}") int chunkSize,
+                              @Value("${anime.import.max-upload-size:1GB}") DataSize maxUploadSize,
+                              @Value("${anime.import.workers:2}") int workers,
+                              @Value("${anime.import.queue-capacity:8}") int queueCapacity,
+                              @Value("${anime.import.retention:PT1H}") Duration retention) {
+        this.animeService = animeService;
+        this.animeMapper = animeMapper;
+        this.bodyReader = objectMapper.readerFor(AnimePOSTBody.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.maxUploadBytes = maxUploadSize.toBytes();
+        this.retention = retention;
+
+        /*
+         * Not a bean on purpose: any Executor bean turns off Spring Boot's applicationTaskExecutor,
+         * which Spring MVC uses for async requests. Once the workers and the queue are full, uploads
+         * are rejected (503) instead of piling spooled files up on disk.
+         * */
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(workers);
+        this.executor.setMaxPoolSize(workers);
+        this.executor.setQueueCapacity(queueCapacity);
+        this.executor.setThreadNamePrefix("anime-import-");
+        this.executor.setWaitForTasksToCompleteOnShutdown(true);
+        this.executor.setAwaitTerminationSeconds(60);
+        this.executor.initialize();
+        this.slots = new Semaphore(workers + queueCapacity);
+    }
+
+    /**
+     * Spools the upload and queues its job. A busy instance answers 503 before reading the upload,
+     * so a rejected file is never written to disk.
+     */
+    public ImportJobStatus submit(Format format, InputStream upload) throws IOException {
+        if (!slots.tryAcquire())
+            throw tooManyImports();
+
+        final Path file;
+        try {
+            file = Files.createTempFile("anime-import-", "." + format.name().toLowerCase(Locale.ROOT));
+        } catch (IOException | RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+
+        final AnimeImportJob job = new AnimeImportJob(UUID.randomUUID().toString(), format);
+        try {
+            spool(upload, file);
+            jobs.put(job.id(), job);
+            executor.execute(() -> {
+                try {
+                    run(job, file);
+                } finally {
+                    slots.release();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // only while shutting down, the slots keep the queue from filling up
+            discard(job, file);
+            throw tooManyImports();
+        } catch (IOException | RuntimeException e) {
+            discard(job, file);
+            throw e;
+        }
+        return job.status();
+    }
+
+    public ImportJobStatus status(String id) throws NotFoundException {
+        final AnimeImportJob job = jobs.get(id);
+        if (job == null)
+            throw new NotFoundException("Import job not found");
+        return job.status();
+    }
+
+    @Scheduled(fixedDelayString = "${anime.import.retention:PT1H}")
+    public void forgetFinishedJobs() {
+        final Instant limit = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedBefore(limit));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void discard(AnimeImportJob job, Path file) throws IOException {
+        jobs.remove(job.id());
+        slots.release();
+        Files.deleteIfExists(file);
+    }
+
+    private static ResponseStatusException tooManyImports() {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many imports running, try again later");
+    }
+
+    private void spool(InputStream upload, Path file) throws IOException {
+        final byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        try (OutputStream outputStream = Files.newOutputStream(file)) {
+            int read;
+            while ((read = upload.read(buffer)) != -1) {
+                total += read;
+                if (total > maxUploadBytes)
+                    throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                            "Uploads are limited to " + maxUploadBytes + " bytes");
+                outputStream.write(buffer, 0, read);
+            }
+        }
+    }
+
+    void run(AnimeImportJob job, Path file) {
+        job.start();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            final List<Anime> chunk = new ArrayList<>(chunkSize);
+            // CSV only: -1 until the first line tells whether there is a header
+            int nameColumn = job.format() == Format.CSV ? -1 : 0;
+            long lineNumber = 0;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && line.startsWith("\uFEFF"))
+                    line = line.substring(1); // byte order mark
+                if (line.isBlank())
+                    continue;
+
+                if (nameColumn == -1) {
+                    final List<String> header = CsvLines.split(line.strip());
+                    nameColumn = indexOfNameColumn(header);
+                    if (nameColumn >= 0)
+                        continue;
+                    nameColumn = 0;
+                }
+
+                job.read();
+                final AnimePOSTBody body;
+                try {
+                    body = job.format() == Format.CSV ? parseCsv(line, nameColumn) : bodyReader.readValue(line);
+                } catch (JsonProcessingException | IllegalArgumentException e) {
+                    job.reject(lineNumber, "not a valid " + job.format() + " row");
+                    continue;
+                }
+                if (body == null) {
+                    job.reject(lineNumber, "not a valid " + job.format() + " row");
+                    continue;
+                }
+
+                final Set<ConstraintViolation<AnimePOSTBody>> violations = validator.validate(body);
+                if (!violations.isEmpty()) {
+                    job.reject(lineNumber, violations.stream()
+                            .map(ConstraintViolation::getMessage)
+                            .collect(Collectors.joining(", ")));
+                    continue;
+                }
+
+                chunk.add(animeMapper.toAnime(body));
+                if (chunk.size() == chunkSize)
+                    flush(job, chunk);
+            }
+            flush(job, chunk);
+            job.complete();
+        } catch (Exception e) {
+            log.error("Import {} failed", job.id(), e);
+            job.fail("import stopped: " + e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete {}", file, e);
+            }
+        }
+    }
+
+    private void flush(AnimeImportJob job, List<Anime> chunk) {
+        if (chunk.isEmpty())
+            return;
+        animeService.insertAll(chunk);
+        job.imported(chunk.size());
+        chunk.clear();
+    }
+
+    private static int indexOfNameColumn(List<String> header) {
+        for (int i = 0; i < header.size(); i++) {
+            if (NAME_COLUMN.equalsIgnoreCase(header.get(i).strip()))
+                return i;
+        }
+        return -1;
+    }
+
+    private static AnimePOSTBody parseCsv(String line, int nameColumn) {
+        final List<String> fields = CsvLines.split(line);
+        if (nameColumn >= fields.size())
+            throw new IllegalArgumentException("missing name column");
+        return AnimePOSTBody.builder().name(fields.get(nameColumn)).build();
+    }
+}
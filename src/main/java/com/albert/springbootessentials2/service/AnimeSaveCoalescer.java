@@ -0,0 +1,194 @@
+package com.albert.springbootessentials2.service;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.mapper.AnimeMapper;
+import com.albert.springbootessentials2.request.AnimePOSTBody;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group commit for {@code POST /animes/admin}. Saves arriving together are queued and one thread
+ * inserts them with a single batched statement and a single commit, so N concurrent saves cost one
+ * commit (and one log flush on the database) instead of N. Every caller still waits for the commit
+ * and gets its own Anime, with its generated id, back.
+ * <p>
+ * A batch is closed when it reaches {@code max-batch-size} or {@code window} after its first save,
+ * whichever comes first. Saves arriving while a batch is being written wait for the next one, so under
+ * load batches grow on their own even with a window of zero. The window is the latency a lone save
+ * pays for that.
+ * <p>
+ * When the batched insert fails, its rows are inserted again one by one, so a single bad row (a name the
+ * column can't hold, say) only fails its own caller and the others still get their Anime. The bodies are validated by the controller before they are queued. {@code max-batch-size} can't be
+ * larger than {@code anime.batch.chunk-size}, otherwise a batch would be split over several commits.
+ */
+@Log4j2
+@Service
+public class AnimeSaveCoalescer {
+    private final AnimeService animeService;
+    private final AnimeMapper animeMapper;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Duration timeout;
+    private final BlockingQueue<PendingSave> queue;
+    private final DistributionSummary batchSizes;
+    private volatile boolean running;
+    private Thread flusher;
+
+    @Autowired
+    public AnimeSaveCoalescer(AnimeService animeService,
+                              AnimeMapper animeMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${anime.save-coalescing.enabled:false}") boolean enabled,
+                              @Value("${anime.save-coalescing.window:2ms}") Duration window,
+                              @Value("${anime.save-coalescing.max-batch-size:100}") int maxBatchSize,
+                              @Value("${anime.save-coalescing.queue-capacity:10000}") int queueCapacity,
+                              @Value("${anime.save-coalescing.timeout:30s}") Duration timeout,
+                              @Value("${anime.batch.chunk-size:500}") int chunkSize) {
+        if (maxBatchSize < 1 || maxBatchSize > chunkSize)
+            throw new IllegalStateException("anime.save-coalescing.max-batch-size must be between 1 and anime.batch.chunk-size ("
+                    + chunkSize + "), it is " + maxBatchSize);
+        this.animeService = animeService;
+        this.animeMapper = animeMapper;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.timeout = timeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        // count = commits, sum = saves, so count rate / sum rate tells how much is being coalesced
+        this.batchSizes = DistributionSummary.builder("anime.save.coalesced.batch")
+                .description("Saves written by each coalesced insert")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled)
+            return;
+        running = true;
+        flusher = new Thread(this::flushLoop, "anime-save-coalescer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null)
+            return;
+        // the loop drains what is already queued before it ends
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+
+        // saves queued right before running turned false
+        final List<PendingSave> left = new ArrayList<>();
+        queue.drainTo(left);
+        flush(left);
+    }
+
+    /**
+     * Blocks until the batch holding this save commits, for {@code timeout} at most. When the queue is
+     * full, or coalescing is off, the save runs on the caller's thread like {@link AnimeService#save(AnimePOSTBody)}.
+     */
+    public Anime save(AnimePOSTBody animePOSTBody) {
+        if (!running)
+            return animeService.save(animePOSTBody);
+
+        final PendingSave pendingSave = new PendingSave(animeMapper.toAnime(animePOSTBody), new CompletableFuture<>());
+        if (!queue.offer(pendingSave))
+            return animeService.save(animePOSTBody);
+        // stop() may have drained the queue for the last time between the check above and the offer
+        if (!running && queue.remove(pendingSave))
+            return animeService.save(animePOSTBody);
+
+        try {
+            return pendingSave.result().orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            if (e.getCause() instanceof TimeoutException)
+                // the batch may still commit, the caller can't know
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "The save did not commit within " + timeout + ", it may still be written");
+            throw e;
+        }
+    }
+
+    private void flushLoop() {
+        final List<PendingSave> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                final PendingSave first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+
+                final long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    final long remaining = deadline - System.nanoTime();
+                    final PendingSave next = remaining > 0
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null)
+                        break;
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // nobody is left to wait for the window, write everything queued now
+                running = false;
+                queue.drainTo(batch);
+                flush(batch);
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingSave> batch) {
+        if (batch.isEmpty())
+            return;
+        try {
+            final List<Anime> savedList = animeService.insertAll(batch.stream().map(PendingSave::anime).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(savedList.get(i));
+            }
+            batchSizes.record(batch.size());
+        } catch (Throwable e) {
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+            // the batch is a single chunk, so nothing of it was committed
+            log.warn("Coalesced insert of {} Anime failed, inserting them one by one", batch.size(), e);
+            batch.forEach(pendingSave -> flush(List.of(pendingSave)));
+        }
+    }
+
+    private record PendingSave(Anime anime, CompletableFuture<Anime> result) {
+    }
+}
@@ -1,75 +1,277 @@
 package com.albert.springbootessentials2.service;
 
+import com.albert.springbootessentials2.config.CacheConfig;
 import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.exception.ConflictException;
 import com.albert.springbootessentials2.exception.NotFoundException;
 import com.albert.springbootessentials2.mapper.AnimeMapper;
+import com.albert.springbootessentials2.repository.AnimeBatchRepository;
 import com.albert.springbootessentials2.repository.AnimeRepository;
-import com.albert.springbootessentials2.request.EntityID;
+import com.albert.springbootessentials2.repository.AnimeSecondLevelCache;
+import com.albert.springbootessentials2.request.EntityIDs;
 import com.albert.springbootessentials2.request.AnimePOSTBody;
 import com.albert.springbootessentials2.request.AnimePUTBody;
+import com.albert.springbootessentials2.search.AnimeNameIndex;
+import com.albert.springbootessentials2.util.AnimeChangeCounter;
+import com.albert.springbootessentials2.util.AnimeCursor;
+import com.albert.springbootessentials2.util.SingleFlight;
+import com.albert.springbootessentials2.wrapper.AnimeBatchResponse;
+import com.albert.springbootessentials2.wrapper.CursorPage;
+import com.albert.springbootessentials2.wrapper.DeleteManyResponse;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 @Service
 public class AnimeService {
+    public static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     private final AnimeRepository animeRepository;
+    private final AnimeBatchRepository animeBatchRepository;
+    private final AnimeSecondLevelCache animeSecondLevelCache;
     private final AnimeMapper animeMapper;
+    private final AnimeNameIndex animeNameIndex;
+    private final AnimeChangeCounter animeChangeCounter;
+    private final SingleFlight singleFlight;
+    private final CacheManager cacheManager;
+    private final Validator validator;
+    // not read-only, so with replica routing its reads stay on the primary
+    private final TransactionTemplate primaryReadTransaction;
 
     @Autowired
-    public AnimeService(AnimeRepository animeRepository, AnimeMapper animeMapper) {
+    public AnimeService(AnimeRepository animeRepository,
+                        AnimeBatchRepository animeBatchRepository,
+                        AnimeSecondLevelCache animeSecondLevelCache,
+                        AnimeMapper animeMapper,
+                        AnimeNameIndex animeNameIndex,
+                        AnimeChangeCounter animeChangeCounter,
+                        SingleFlight singleFlight,
+                        CacheManager cacheManager,
+                        Validator validator,
+                        PlatformTransactionManager transactionManager) {
         this.animeRepository = animeRepository;
+        this.animeBatchRepository = animeBatchRepository;
+        this.animeSecondLevelCache = animeSecondLevelCache;
         this.animeMapper = animeMapper;
+        this.animeNameIndex = animeNameIndex;
+        this.animeChangeCounter = animeChangeCounter;
+        this.singleFlight = singleFlight;
+        this.cacheManager = cacheManager;
+        this.validator = validator;
+        this.primaryReadTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * ETag shared by every listing, it changes whenever an Anime is saved, replaced or removed.
+     */
+    public String listingETag() {
+        return animeChangeCounter.eTag();
     }
 
     public Page<Anime> listAll(Pageable pageable) {
         return animeRepository.findAll(pageable);
     }
 
+    public CursorPage<Anime> listAll(AnimeCursor cursor, int size) {
+        final int pageSize = Math.min(Math.max(size, 1), MAX_CURSOR_PAGE_SIZE);
+        // the extra row tells whether there is a next slice, so no count query is needed
+        final Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        final List<Anime> rows = switch (cursor.sortKey()) {
+            case ID -> animeRepository.findNextById(cursor.lastId(), limit);
+            case NAME -> cursor.isFirst()
+                    ? animeRepository.findAllOrderedByName(limit)
+                    : animeRepository.findNextByName(cursor.lastName(), cursor.lastId(), limit);
+        };
+
+        final boolean last = rows.size() <= pageSize;
+        final List<Anime> content = new ArrayList<>(last ? rows : rows.subList(0, pageSize));
+        return CursorPage.<Anime>builder()
+                .content(content)
+                .size(pageSize)
+                .nextCursor(last ? null : cursor.after(content.get(content.size() - 1)).encode())
+                .last(last)
+                .build();
+    }
+
     public List<Anime> listAllNonPageable() {
         return animeRepository.findAll();
     }
 
+    /**
+     * Hands every Anime with id greater than {@code afterId} to the consumer, in id order,
+     * without ever holding more than one fetch of rows in memory.
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(long afterId, Consumer<Anime> consumer) {
+        try (Stream<Anime> animeStream = animeRepository.streamAllAfter(afterId)) {
+            animeStream.forEach(consumer);
+        }
+    }
+
+    /*
+     * Misses (NotFoundException) are never cached, so inserts can't leave stale entries behind.
+     * Concurrent misses for the same id (a cold or just expired entry) share one query.
+     * The query reads the primary even with replica routing: a lagging replica could otherwise put back
+     * a row that a write has just evicted.
+     * */
+    @Cacheable(cacheNames = CacheConfig.ANIME_CACHE, key = "#id")
     public Anime findById(long id) throws NotFoundException {
-        return animeRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("Anime not found"));
+        return singleFlight.execute("findById", id, () -> primaryReadTransaction.execute(status -> animeRepository.findById(id))
+                .orElseThrow(() -> new NotFoundException("Anime not found")));
 //                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Anime not found"));
     }
 
+    /**
+     * Reads many Anime with chunked {@code IN} queries instead of one findById per id.
+     */
+    public AnimeBatchResponse findAllById(long[] ids) {
+        // distinct() keeps the first occurrence, so the request order survives
+        final long[] uniqueIds = LongStream.of(ids).distinct().toArray();
+        final Map<Long, Anime> found = animeBatchRepository.findAllById(uniqueIds);
+
+        final List<Anime> content = new ArrayList<>(found.size());
+        final LongStream.Builder missingIds = LongStream.builder();
+        for (long id : uniqueIds) {
+            final Anime anime = found.get(id);
+            if (anime == null)
+                missingIds.add(id);
+            else
+                content.add(anime);
+        }
+        return AnimeBatchResponse.builder()
+                .content(content)
+                .missingIds(missingIds.build().toArray())
+                .build();
+    }
+
     public List<Anime> findAllByName(String name) {
-        return animeRepository.findAllByName(name);
+        return singleFlight.execute("findAllByName", name, () -> animeNameIndex.findIds(name)
+                .map(ids -> findAllByIdContainingName(ids, name))
+                .orElseGet(() -> animeRepository.findAllByName(name)));
+    }
+
+    // the name is checked again against the loaded rows, so a stale index entry never leaks into the result
+    private List<Anime> findAllByIdContainingName(List<Long> ids, String name) {
+        if (ids.isEmpty())
+            return Collections.emptyList();
+
+        final String normalizedName = AnimeNameIndex.normalize(name);
+        return animeRepository.findAllById(ids).stream()
+                .filter(anime -> AnimeNameIndex.normalize(anime.getName()).contains(normalizedName))
+                .sorted(Comparator.comparing(Anime::getId))
+                .collect(Collectors.toList());
     }
 
 //    @Transactional(rollbackFor = Exception.class)
     @Transactional
     public Anime save(AnimePOSTBody animePOSTBody) {
         Anime newAnime = animeMapper.toAnime(animePOSTBody);
-        return animeRepository.save(newAnime);
+        final Anime savedAnime = animeRepository.save(newAnime);
+        animeNameIndex.put(savedAnime.getId(), savedAnime.getName());
+        animeChangeCounter.increment();
+        return savedAnime;
     }
 
-    @Transactional
-    public List<Anime> saveMany(List<AnimePOSTBody> list) {
+    /**
+     * Inserts through JDBC batches and commits every {@code anime.batch.chunk-size} rows, so a failure
+     * keeps the chunks committed before it. The saved Anime come back in the same order as {@code list}.
+     */
+    public List<Anime> saveMany(List<AnimePOSTBody> list) throws ConstraintViolationException {
         final List<Anime> collect = list.stream().map(animeMapper::toAnime).collect(Collectors.toList());
-        return animeRepository.saveAll(collect);
+
+        // JDBC skips the Bean Validation Hibernate ran on every persist, so nothing is written if one fails
+        final Set<ConstraintViolation<Anime>> violations = collect.stream()
+                .flatMap(anime -> validator.validate(anime).stream())
+                .collect(Collectors.toSet());
+        if (!violations.isEmpty())
+            throw new ConstraintViolationException(violations);
+
+        return insertAll(collect);
     }
 
+    // the Anime must be valid already, every chunk becomes searchable (and changes the listing ETag) once it commits
+    List<Anime> insertAll(List<Anime> animeList) {
+        return animeBatchRepository.insertAll(animeList, savedChunk -> {
+            savedChunk.forEach(anime -> animeNameIndex.put(anime.getId(), anime.getName()));
+            animeSecondLevelCache.evictQueries();
+            animeChangeCounter.increment();
+        });
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.ANIME_CACHE, key = "#id")
     public void remove(Long id) throws NotFoundException {
-        findById(id);
-        animeRepository.deleteById(id);
+        if (animeRepository.deleteAnimeById(id) == 0)
+            throw new NotFoundException("Anime not found");
+        animeNameIndex.remove(id);
+        animeChangeCounter.increment();
     }
 
-    public void remove(List<EntityID> entityIDS) {
-        final List<Long> collect = entityIDS.stream().map(EntityID::getId).collect(Collectors.toList());
-        animeRepository.deleteAllById(collect);
+    /**
+     * Every chunk commits on its own, so its ids leave the caches as soon as it commits: a later chunk
+     * failing must not leave rows that are already gone in the {@code animes} cache.
+     */
+    public DeleteManyResponse remove(EntityIDs entityIDS) {
+        final Cache animeCache = cacheManager.getCache(CacheConfig.ANIME_CACHE);
+        return animeBatchRepository.deleteAllById(entityIDS.getIds(), deletedIds -> {
+            for (long id : deletedIds) {
+                // evictIfPresent isn't deferred to a surrounding transaction, the chunk is already committed
+                if (animeCache != null)
+                    animeCache.evictIfPresent(id);
+                animeNameIndex.remove(id);
+            }
+            if (deletedIds.length > 0) {
+                animeSecondLevelCache.evictAll(deletedIds);
+                animeChangeCounter.increment();
+            }
+        });
     }
 
-    public void replace(AnimePUTBody animePUTBody) throws NotFoundException {
-        findById(animePUTBody.getId()); // doesn't throw anything if the @Entity exists
-        animeRepository.save(animeMapper.toAnime(animePUTBody));
+    /**
+     * Replaces the name with a single UPDATE. When the body carries a version, the row is only
+     * updated if it still has that version, otherwise the last write wins.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.ANIME_CACHE, key = "#animePUTBody.id")
+    public void replace(AnimePUTBody animePUTBody) throws NotFoundException, ConflictException {
+        final long id = animePUTBody.getId();
+        final Long version = animePUTBody.getVersion();
+
+        final int updated = version == null
+                ? animeRepository.updateName(id, animePUTBody.getName())
+                : animeRepository.updateNameIfVersion(id, animePUTBody.getName(), version);
+
+        if (updated == 0) {
+            // only a failed write pays for the second statement
+            if (version != null && animeRepository.existsById(id))
+                throw new ConflictException("Anime was changed by someone else, version " + version + " is outdated");
+            throw new NotFoundException("Anime not found");
+        }
+        animeNameIndex.put(id, animePUTBody.getName());
+        animeChangeCounter.increment();
     }
 }
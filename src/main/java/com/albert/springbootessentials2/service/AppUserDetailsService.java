@@ -1,7 +1,9 @@
 package com.albert.springbootessentials2.service;
 
+import com.albert.springbootessentials2.config.CacheConfig;
 import com.albert.springbootessentials2.repository.AppUserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -18,7 +20,9 @@ public class AppUserDetailsService implements UserDetailsService {
         this.appUserRepository = appUserRepository;
     }
 
+    // unknown usernames throw and are never cached, AppUserCacheEvictionListener clears the cache on changes
     @Override
+    @Cacheable(cacheNames = CacheConfig.USER_CACHE, key = "#username")
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         return Optional.ofNullable(appUserRepository.findByUsername(username))
                 .orElseThrow(() -> new UsernameNotFoundException("Username not found"));
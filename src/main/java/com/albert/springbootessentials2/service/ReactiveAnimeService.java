@@ -0,0 +1,148 @@
+package com.albert.springbootessentials2.service;
+
+import com.albert.springbootessentials2.config.CacheConfig;
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.exception.ConflictException;
+import com.albert.springbootessentials2.exception.NotFoundException;
+import com.albert.springbootessentials2.mapper.AnimeMapper;
+import com.albert.springbootessentials2.repository.AnimeSecondLevelCache;
+import com.albert.springbootessentials2.repository.ReactiveAnimeRepository;
+import com.albert.springbootessentials2.request.AnimePOSTBody;
+import com.albert.springbootessentials2.request.AnimePUTBody;
+import com.albert.springbootessentials2.search.AnimeNameIndex;
+import com.albert.springbootessentials2.util.AnimeChangeCounter;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking counterpart of {@link AnimeService}. It writes to the same table, so it keeps the same
+ * side effects in step: the findById cache, the Hibernate second-level cache, the name index and the
+ * listing ETag. There is no transaction synchronization on reactive threads, so they run once the
+ * write has completed.
+ */
+@Service
+public class ReactiveAnimeService {
+    private final ReactiveAnimeRepository reactiveAnimeRepository;
+    private final AnimeMapper animeMapper;
+    private final AnimeNameIndex animeNameIndex;
+    private final AnimeChangeCounter animeChangeCounter;
+    private final CacheManager cacheManager;
+    private final AnimeSecondLevelCache animeSecondLevelCache;
+    private final TransactionalOperator transactionalOperator;
+    private final Validator validator;
+
+    @Autowired
+    public ReactiveAnimeService(ReactiveAnimeRepository reactiveAnimeRepository,
+                                AnimeMapper animeMapper,
+                                AnimeNameIndex animeNameIndex,
+                                AnimeChangeCounter animeChangeCounter,
+                                CacheManager cacheManager,
+                                AnimeSecondLevelCache animeSecondLevelCache,
+                                TransactionalOperator reactiveTransactionalOperator,
+                                Validator validator) {
+        this.reactiveAnimeRepository = reactiveAnimeRepository;
+        this.animeMapper = animeMapper;
+        this.animeNameIndex = animeNameIndex;
+        this.animeChangeCounter = animeChangeCounter;
+        this.cacheManager = cacheManager;
+        this.animeSecondLevelCache = animeSecondLevelCache;
+        this.transactionalOperator = reactiveTransactionalOperator;
+        this.validator = validator;
+    }
+
+    public Flux<Anime> listAll(int page, int size) {
+        final int pageSize = Math.min(Math.max(size, 1), AnimeService.MAX_CURSOR_PAGE_SIZE);
+        return reactiveAnimeRepository.findAll((long) Math.max(page, 0) * pageSize, pageSize);
+    }
+
+    public Mono<Anime> findById(long id) {
+        return reactiveAnimeRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Anime not found")));
+    }
+
+    public Flux<Anime> findAllByName(String name) {
+        return reactiveAnimeRepository.findAllByName(name);
+    }
+
+    public Mono<Anime> save(AnimePOSTBody animePOSTBody) {
+        return reactiveAnimeRepository.insert(animeMapper.toAnime(animePOSTBody).getName())
+                .doOnNext(savedAnime -> {
+                    animeNameIndex.put(savedAnime.getId(), savedAnime.getName());
+                    animeSecondLevelCache.evictQueries();
+                    animeChangeCounter.increment();
+                });
+    }
+
+    // all or nothing, in one R2DBC transaction
+    public Flux<Anime> saveMany(List<AnimePOSTBody> list) {
+        final List<Anime> animeList = list.stream().map(animeMapper::toAnime).collect(Collectors.toList());
+        final Set<ConstraintViolation<Anime>> violations = animeList.stream()
+                .flatMap(anime -> validator.validate(anime).stream())
+                .collect(Collectors.toSet());
+        if (!violations.isEmpty())
+            return Flux.error(new ConstraintViolationException(violations));
+
+        return Flux.fromIterable(animeList)
+                .concatMap(anime -> reactiveAnimeRepository.insert(anime.getName()))
+                .collectList()
+                .as(transactionalOperator::transactional)
+                .doOnNext(savedList -> {
+                    savedList.forEach(anime -> animeNameIndex.put(anime.getId(), anime.getName()));
+                    animeSecondLevelCache.evictQueries();
+                    animeChangeCounter.increment();
+                })
+                .flatMapMany(Flux::fromIterable);
+    }
+
+    public Mono<Void> replace(AnimePUTBody animePUTBody) {
+        final long id = animePUTBody.getId();
+        final Long version = animePUTBody.getVersion();
+        final Mono<Long> update = version == null
+                ? reactiveAnimeRepository.updateName(id, animePUTBody.getName())
+                : reactiveAnimeRepository.updateNameIfVersion(id, animePUTBody.getName(), version);
+
+        return update.flatMap(updated -> {
+            if (updated > 0) {
+                evict(id);
+                animeNameIndex.put(id, animePUTBody.getName());
+                animeChangeCounter.increment();
+                return Mono.<Void>empty();
+            }
+            if (version == null)
+                return Mono.error(new NotFoundException("Anime not found"));
+            return reactiveAnimeRepository.existsById(id).flatMap(exists -> Mono.error(exists
+                    ? new ConflictException("Anime was changed by someone else, version " + version + " is outdated")
+                    : new NotFoundException("Anime not found")));
+        });
+    }
+
+    public Mono<Void> remove(long id) {
+        return reactiveAnimeRepository.deleteById(id).flatMap(deleted -> {
+            if (deleted == 0)
+                return Mono.error(new NotFoundException("Anime not found"));
+            evict(id);
+            animeNameIndex.remove(id);
+            animeChangeCounter.increment();
+            return Mono.empty();
+        });
+    }
+
+    private void evict(long id) {
+        final Cache cache = cacheManager.getCache(CacheConfig.ANIME_CACHE);
+        if (cache != null)
+            cache.evict(id);
+        animeSecondLevelCache.evict(id);
+    }
+}
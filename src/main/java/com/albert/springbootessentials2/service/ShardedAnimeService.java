@@ -0,0 +1,103 @@
+package com.albert.springbootessentials2.service;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.exception.BadRequestException;
+import com.albert.springbootessentials2.exception.ConflictException;
+import com.albert.springbootessentials2.exception.NotFoundException;
+import com.albert.springbootessentials2.mapper.AnimeMapper;
+import com.albert.springbootessentials2.repository.ShardedAnimeRepository;
+import com.albert.springbootessentials2.request.AnimePOSTBody;
+import com.albert.springbootessentials2.request.AnimePUTBody;
+import com.albert.springbootessentials2.util.AnimeCursor;
+import com.albert.springbootessentials2.wrapper.CursorPage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counterpart of {@link AnimeService} on the sharded storage. The shards hold their own catalog, apart
+ * from the JPA one, so none of its caches, name index or listing ETag are involved here.
+ */
+@Service
+@ConditionalOnProperty(name = "anime.sharding.enabled", havingValue = "true")
+public class ShardedAnimeService {
+    // every shard reads up to this many rows for one page, deeper pages have to use the cursor
+    public static final int MAX_PAGE_WINDOW = 10_000;
+
+    private final ShardedAnimeRepository shardedAnimeRepository;
+    private final AnimeMapper animeMapper;
+
+    @Autowired
+    public ShardedAnimeService(ShardedAnimeRepository shardedAnimeRepository, AnimeMapper animeMapper) {
+        this.shardedAnimeRepository = shardedAnimeRepository;
+        this.animeMapper = animeMapper;
+    }
+
+    public Page<Anime> listAll(int page, int size) throws BadRequestException {
+        final int pageSize = pageSize(size);
+        final int pageNumber = Math.max(page, 0);
+        if ((long) (pageNumber + 1) * pageSize > MAX_PAGE_WINDOW)
+            throw new BadRequestException("Pages past the first " + MAX_PAGE_WINDOW + " Anime can only be read with /scroll");
+        return shardedAnimeRepository.findAll(pageNumber, pageSize);
+    }
+
+    public CursorPage<Anime> listAll(AnimeCursor cursor, int size) {
+        final int pageSize = pageSize(size);
+        // the extra row tells whether there is a next slice
+        final List<Anime> rows = shardedAnimeRepository.findNext(cursor, pageSize + 1);
+
+        final boolean last = rows.size() <= pageSize;
+        final List<Anime> content = new ArrayList<>(last ? rows : rows.subList(0, pageSize));
+        return CursorPage.<Anime>builder()
+                .content(content)
+                .size(pageSize)
+                .nextCursor(last ? null : cursor.after(content.get(content.size() - 1)).encode())
+                .last(last)
+                .build();
+    }
+
+    public Anime findById(long id) throws NotFoundException {
+        return shardedAnimeRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Anime not found"));
+    }
+
+    public List<Anime> findAllByName(String name, int page, int size) throws BadRequestException {
+        final int pageSize = pageSize(size);
+        final int pageNumber = Math.max(page, 0);
+        if ((long) (pageNumber + 1) * pageSize > MAX_PAGE_WINDOW)
+            throw new BadRequestException("Only the first " + MAX_PAGE_WINDOW + " matches can be paged, narrow the name");
+        return shardedAnimeRepository.findAllByName(name, pageNumber, pageSize);
+    }
+
+    public Anime save(AnimePOSTBody animePOSTBody) {
+        return shardedAnimeRepository.insert(animeMapper.toAnime(animePOSTBody).getName());
+    }
+
+    public void replace(AnimePUTBody animePUTBody) throws NotFoundException, ConflictException {
+        final long id = animePUTBody.getId();
+        final Long version = animePUTBody.getVersion();
+
+        final int updated = version == null
+                ? shardedAnimeRepository.updateName(id, animePUTBody.getName())
+                : shardedAnimeRepository.updateNameIfVersion(id, animePUTBody.getName(), version);
+
+        if (updated == 0) {
+            if (version != null && shardedAnimeRepository.existsById(id))
+                throw new ConflictException("Anime was changed by someone else, version " + version + " is outdated");
+            throw new NotFoundException("Anime not found");
+        }
+    }
+
+    public void remove(long id) throws NotFoundException {
+        if (shardedAnimeRepository.deleteById(id) == 0)
+            throw new NotFoundException("Anime not found");
+    }
+
+    private static int pageSize(int size) {
+        return Math.min(Math.max(size, 1), AnimeService.MAX_CURSOR_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,60 @@
+package com.albert.springbootessentials2.service;
+
+import com.albert.springbootessentials2.config.TokenConfig;
+import com.albert.springbootessentials2.wrapper.TokenResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+@Service
+public class TokenService {
+    private final JwtEncoder jwtEncoder;
+    private final Duration timeToLive;
+    private final String issuer;
+
+    @Autowired
+    public TokenService(JwtEncoder jwtEncoder,
+                        @Value("${anime.security.token.time-to-live:15m}") Duration timeToLive,
+                        @Value("${spring.application.name}") String issuer) {
+        this.jwtEncoder = jwtEncoder;
+        this.timeToLive = timeToLive;
+        this.issuer = issuer;
+    }
+
+    /**
+     * Signs a token carrying the user's roles. The roles are frozen until it expires,
+     * so keep the time to live short.
+     */
+    public TokenResponse issue(Authentication authentication) {
+        final Instant now = Instant.now();
+        final List<String> roles = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+
+        final JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer(issuer)
+                .subject(authentication.getName())
+                .issuedAt(now)
+                .expiresAt(now.plus(timeToLive))
+                .claim(TokenConfig.ROLES_CLAIM, roles)
+                .build();
+        final JwsHeader header = JwsHeader.with(MacAlgorithm.HS256).build();
+
+        return TokenResponse.builder()
+                .accessToken(jwtEncoder.encode(JwtEncoderParameters.from(header, claims)).getTokenValue())
+                .tokenType("Bearer")
+                .expiresIn(timeToLive.toSeconds())
+                .build();
+    }
+}
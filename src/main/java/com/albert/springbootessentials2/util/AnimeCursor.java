@@ -0,0 +1,67 @@
+package com.albert.springbootessentials2.util;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Position of a keyset (seek) listing: the sort key plus the id and name of the last Anime
+ * the client has seen. Travels as an opaque base64url token, so clients never build it by hand.
+ */
+public record AnimeCursor(SortKey sortKey, long lastId, String lastName) {
+    public enum SortKey {ID, NAME}
+
+    private static final String SEPARATOR = ":";
+
+    /**
+     * Cursor pointing before the first Anime. Generated ids are always positive.
+     */
+    public static AnimeCursor first(String sort) {
+        return new AnimeCursor(parseSortKey(sort), 0L, null);
+    }
+
+    public AnimeCursor after(Anime anime) {
+        return new AnimeCursor(sortKey, anime.getId(), sortKey == SortKey.NAME ? anime.getName() : null);
+    }
+
+    public boolean isFirst() {
+        return lastId == 0L && lastName == null;
+    }
+
+    public String encode() {
+        String payload = sortKey.name() + SEPARATOR + lastId;
+        if (sortKey == SortKey.NAME)
+            payload += SEPARATOR + lastName;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static AnimeCursor decode(String token) throws BadRequestException {
+        try {
+            final String payload = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // the name is last and may contain the separator itself
+            final String[] parts = payload.split(SEPARATOR, 3);
+            final SortKey sortKey = parseSortKey(parts[0]);
+            final long lastId = Long.parseLong(parts[1]);
+
+            if (sortKey == SortKey.NAME)
+                return new AnimeCursor(sortKey, lastId, parts[2]);
+            if (parts.length != 2)
+                throw new BadRequestException("Invalid cursor");
+            return new AnimeCursor(sortKey, lastId, null);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    private static SortKey parseSortKey(String sort) throws BadRequestException {
+        try {
+            return SortKey.valueOf(sort.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Sort must be 'id' or 'name'");
+        }
+    }
+}
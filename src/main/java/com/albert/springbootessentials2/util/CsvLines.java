@@ -0,0 +1,57 @@
+package com.albert.springbootessentials2.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits and writes CSV fields (RFC 4180 quoting: {@code "a, b"} and {@code ""} for a quote).
+ * Quoted line breaks are not supported when splitting, every record is one line.
+ */
+public final class CsvLines {
+    private CsvLines() {
+    }
+
+    public static List<String> split(String line) {
+        final List<String> fields = new ArrayList<>();
+        final StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted)
+            throw new IllegalArgumentException("unterminated quoted field");
+
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // quotes only when needed, line breaks become spaces so that every record stays on one line
+    public static String quote(String field) {
+        if (field == null)
+            return "";
+        String value = field;
+        if (value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0)
+            value = value.replace("\r\n", " ").replace('\n', ' ').replace('\r', ' ');
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0)
+            return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,52 @@
+package com.albert.springbootessentials2.util;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Parses role strings such as {@code "ROLE_USER,ROLE_ADMIN"} once. Every user with the same roles
+ * shares the same immutable Set, and every role the same {@link SimpleGrantedAuthority}.
+ */
+public final class GrantedAuthorities {
+    // a handful of role combinations exist, the limit only guards against unbounded growth
+    private static final int MAX_ENTRIES = 1024;
+
+    private static final Map<String, Set<GrantedAuthority>> BY_CSV = new ConcurrentHashMap<>();
+    private static final Map<String, GrantedAuthority> BY_ROLE = new ConcurrentHashMap<>();
+
+    private GrantedAuthorities() {
+    }
+
+    public static Set<GrantedAuthority> fromCsv(String roles) {
+        if (roles == null || roles.isBlank())
+            return Set.of();
+
+        final Set<GrantedAuthority> cached = BY_CSV.get(roles);
+        if (cached != null)
+            return cached;
+
+        final Set<GrantedAuthority> authorities = Arrays.stream(roles.split(","))
+                .map(String::trim)
+                .filter(role -> !role.isEmpty())
+                .map(GrantedAuthorities::intern)
+                .collect(Collectors.toUnmodifiableSet());
+        if (BY_CSV.size() < MAX_ENTRIES)
+            BY_CSV.putIfAbsent(roles, authorities);
+        return authorities;
+    }
+
+    private static GrantedAuthority intern(String role) {
+        final GrantedAuthority authority = BY_ROLE.get(role);
+        if (authority != null)
+            return authority;
+        if (BY_ROLE.size() >= MAX_ENTRIES)
+            return new SimpleGrantedAuthority(role);
+        return BY_ROLE.computeIfAbsent(role, SimpleGrantedAuthority::new);
+    }
+}
@@ -0,0 +1,97 @@
+package com.albert.springbootessentials2.util;
+
+import com.albert.springbootessentials2.datasource.ReadYourWrites;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent identical lookups: while a lookup for a key runs, the calls that ask for the
+ * same key wait for it and get its result (or its exception) instead of running their own query.
+ * Nothing is kept once the lookup ends, the next call runs a fresh one, so this never serves data
+ * older than the query that was already running.
+ * <p>
+ * With replica routing, calls pinned to the primary by {@link ReadYourWrites} and the others never share
+ * a lookup: the routing decision is part of the key, so a pinned caller can't get a replica's result.
+ * <p>
+ * The leader registers its future with a single {@code putIfAbsent} and takes it out before
+ * completing it, whatever the outcome, so a failed lookup is never handed to later calls. Waiting
+ * calls are counted in {@code anime.single-flight.collapsed}, tagged by operation.
+ * <p>
+ * Callers share the returned object, they must not modify it.
+ */
+@Component
+public class SingleFlight {
+    private final MeterRegistry meterRegistry;
+    // null unless anime.datasource.routing.enabled is true
+    private final ReadYourWrites readYourWrites;
+    private final boolean enabled;
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> collapsedCounters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SingleFlight(MeterRegistry meterRegistry,
+                        ObjectProvider<ReadYourWrites> readYourWrites,
+                        @Value("${anime.single-flight.enabled:true}") boolean enabled) {
+        this.meterRegistry = meterRegistry;
+        this.readYourWrites = readYourWrites.getIfAvailable();
+        this.enabled = enabled;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <V> V execute(String operation, Object key, Supplier<V> lookup) {
+        if (!enabled)
+            return lookup.get();
+
+        final Key flightKey = new Key(operation, key, readYourWrites != null && readYourWrites.isPinned());
+        final CompletableFuture<Object> flight = new CompletableFuture<>();
+        final CompletableFuture<Object> running = inFlight.putIfAbsent(flightKey, flight);
+        if (running != null) {
+            collapsed(operation).increment();
+            return (V) await(running);
+        }
+
+        try {
+            final V value = lookup.get();
+            inFlight.remove(flightKey, flight);
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(flightKey, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            // the leader's own exception, e.g. NotFoundException, so it maps to the same status
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            if (e.getCause() instanceof Error error)
+                throw error;
+            throw e;
+        }
+    }
+
+    private Counter collapsed(String operation) {
+        return collapsedCounters.computeIfAbsent(operation, name -> Counter.builder("anime.single-flight.collapsed")
+                .description("Calls that waited for an identical lookup already running instead of querying")
+                .tag("operation", name)
+                .register(meterRegistry));
+    }
+
+    private record Key(String operation, Object key, boolean primary) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.albert.springbootessentials2.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 64-bit ids unique across shards and application instances without asking any database:
+ * 41 bits of milliseconds since 2024-01-01, 10 bits of worker id (one per running instance,
+ * {@code anime.sharding.worker-id}) and a 12-bit sequence within the millisecond. They grow with
+ * time, so sorting by id is still roughly insertion order, and are always positive.
+ * <p>
+ * They are above 2^53, more than a JavaScript number holds exactly: /sharded/animes writes them as strings.
+ */
+public class SnowflakeIdGenerator {
+    public static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int WORKER_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final int MAX_WORKER_ID = (1 << WORKER_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    static final long MAX_BACKWARD_MILLIS = 5;
+
+    private final long workerId;
+    private final Clock clock;
+    private long lastMillis = -1L;
+    private long sequence;
+
+    public SnowflakeIdGenerator(int workerId) {
+        this(workerId, Clock.systemUTC());
+    }
+
+    SnowflakeIdGenerator(int workerId, Clock clock) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID)
+            throw new IllegalArgumentException("The worker id must be between 0 and " + MAX_WORKER_ID);
+        this.workerId = workerId;
+        this.clock = clock;
+    }
+
+    // 4096 ids per millisecond and instance, the next caller waits for the following millisecond after that
+    public synchronized long nextId() {
+        long millis = clockNotBefore(lastMillis);
+
+        if (millis == lastMillis) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0)
+                millis = clockNotBefore(lastMillis + 1);
+        } else {
+            sequence = 0;
+        }
+        lastMillis = millis;
+        return ((millis - EPOCH_MILLIS) << (WORKER_BITS + SEQUENCE_BITS)) | (workerId << SEQUENCE_BITS) | sequence;
+    }
+
+    /*
+     * Waits until the clock reaches minMillis. Within the last millisecond it spins, that is less than a
+     * millisecond. A clock set back (NTP) by up to MAX_BACKWARD_MILLIS is slept through instead of reissuing
+     * old ids, a larger jump fails the call: every caller would otherwise wait on this monitor until the
+     * clock caught up.
+     * */
+    private long clockNotBefore(long minMillis) {
+        long millis = clock.millis();
+        while (millis < minMillis) {
+            final long backward = lastMillis - millis;
+            if (backward > MAX_BACKWARD_MILLIS)
+                throw new IllegalStateException("The clock moved back " + backward + " ms, no ids are issued until it catches up");
+            if (backward > 0)
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backward));
+            else
+                Thread.onSpinWait();
+            millis = clock.millis();
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,20 @@
+package com.albert.springbootessentials2.wrapper;
+
+import com.albert.springbootessentials2.domain.Anime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnimeBatchResponse {
+    // in request order, an id asked for twice is returned once
+    private List<Anime> content;
+    // in request order, without duplicates
+    private long[] missingIds;
+}
@@ -0,0 +1,23 @@
+package com.albert.springbootessentials2.wrapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Slice of a keyset listing. Unlike {@link PageableResponse} there is no total count:
+ * send {@code nextCursor} back to get the next slice, it is null on the last one.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private int size;
+    private String nextCursor;
+    private boolean last;
+}
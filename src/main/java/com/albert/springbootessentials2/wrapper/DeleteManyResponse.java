@@ -0,0 +1,16 @@
+package com.albert.springbootessentials2.wrapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeleteManyResponse {
+    private long deleted;
+    // ascending, without duplicates
+    private long[] missingIds;
+}
@@ -0,0 +1,33 @@
+package com.albert.springbootessentials2.wrapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Snapshot of an import job, see AnimeImportService.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobStatus {
+    public enum State {QUEUED, RUNNING, COMPLETED, FAILED}
+
+    private String id;
+    private State state;
+    private String format;
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsRejected;
+    private double rowsPerSecond;
+    // the first rejected rows and the failure, if any, with their line numbers
+    private List<String> errors;
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+}
@@ -0,0 +1,27 @@
+package com.albert.springbootessentials2.wrapper;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An Anime as /sharded/animes returns it. Snowflake ids are above 2^53, past what a JavaScript number
+ * holds exactly, so the id is written as a string. Request bodies may send it as a string or a number.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardedAnimeResponse {
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Long id;
+    private String name;
+    private Long version;
+
+    public static ShardedAnimeResponse of(Anime anime) {
+        return new ShardedAnimeResponse(anime.getId(), anime.getName(), anime.getVersion());
+    }
+}
@@ -0,0 +1,17 @@
+package com.albert.springbootessentials2.wrapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenResponse {
+    private String accessToken;
+    private String tokenType;
+    // seconds
+    private long expiresIn;
+}
@@ -7,7 +7,10 @@ import com.albert.springbootessentials2.repository.AppUserRepository;
 import com.albert.springbootessentials2.request.AnimePOSTBody;
 import com.albert.springbootessentials2.request.AnimePUTBody;
 import com.albert.springbootessentials2.request.EntityID;
+import com.albert.springbootessentials2.wrapper.AnimeBatchResponse;
+import com.albert.springbootessentials2.wrapper.DeleteManyResponse;
 import com.albert.springbootessentials2.wrapper.PageableResponse;
+import com.albert.springbootessentials2.wrapper.TokenResponse;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +26,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -30,6 +34,7 @@ import org.springframework.security.crypto.factory.PasswordEncoderFactories;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.annotation.DirtiesContext;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static com.albert.springbootessentials2.util.AnimeCreator.createAnimeListToSave;
@@ -214,6 +219,72 @@ public class AnimeControllerIT {
                 .isEqualTo(savedAnime);
     }
 
+    @Test
+    @DisplayName("findById and listAllNonPageable return Not Modified status when the ETag still matches")
+    void findByIdAndListAllNonPageable_ReturnNotModifiedStatus_WhenETagMatches() {
+        final Anime savedAnime = animeRepository.save(createAnimeToSave());
+        appUserRepository.save(USER);
+
+        for (String url : List.of("/animes/" + savedAnime.getId(), "/animes/all")) {
+            final ResponseEntity<String> first = testRestTemplateRoleUser.getForEntity(url, String.class);
+            assertThat(first.getHeaders().getETag()).isNotNull();
+
+            final HttpHeaders headers = new HttpHeaders();
+            headers.setIfNoneMatch(first.getHeaders().getETag());
+            final ResponseEntity<String> second = testRestTemplateRoleUser.exchange(url,
+                    HttpMethod.GET,
+                    new HttpEntity<>(headers),
+                    String.class);
+
+            assertThat(second.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+            assertThat(second.getBody()).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("listAllNonPageable accepts the token from /auth/token instead of the password")
+    void listAllNonPageable_ReturnsOkStatus_WhenAuthenticatedWithToken() {
+        appUserRepository.save(USER);
+
+        final ResponseEntity<TokenResponse> tokenResponse =
+                testRestTemplateRoleUser.postForEntity("/auth/token", null, TokenResponse.class);
+        assertThat(tokenResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(tokenResponse.getBody()).isNotNull();
+
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(tokenResponse.getBody().getAccessToken());
+        final TestRestTemplate anonymous = new TestRestTemplate(new RestTemplateBuilder().rootUri("http://localhost:" + port));
+
+        final ResponseEntity<String> listing =
+                anonymous.exchange("/animes/all", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        final ResponseEntity<String> adminOnly =
+                anonymous.exchange("/animes/admin/1", HttpMethod.DELETE, new HttpEntity<>(headers), String.class);
+
+        assertThat(listing.getStatusCode()).isEqualTo(HttpStatus.OK);
+        // the roles travel inside the token
+        assertThat(adminOnly.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    @DisplayName("token returns Unauthorized status when only a bearer token is sent")
+    void token_ReturnsUnauthorizedStatus_WhenAuthenticatedWithToken() {
+        appUserRepository.save(USER);
+
+        final ResponseEntity<TokenResponse> tokenResponse =
+                testRestTemplateRoleUser.postForEntity("/auth/token", null, TokenResponse.class);
+        assertThat(tokenResponse.getBody()).isNotNull();
+
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(tokenResponse.getBody().getAccessToken());
+        final TestRestTemplate anonymous = new TestRestTemplate(new RestTemplateBuilder().rootUri("http://localhost:" + port));
+
+        // a token can't be renewed with itself, only the password issues one
+        final ResponseEntity<String> renewal =
+                anonymous.exchange("/auth/token", HttpMethod.POST, new HttpEntity<>(headers), String.class);
+
+        assertThat(renewal.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
     @Test
     @DisplayName("findById returns Not Found status when Anime is not found")
     void findById_ReturnsNotFoundStatus_WhenAnimeIsNotFound() {
@@ -329,24 +400,30 @@ public class AnimeControllerIT {
     }
 
     @Test
-    @DisplayName("removeMany returns void when successful")
-    void removeMany_ReturnsVoid_WhenSuccessful() {
+    @DisplayName("removeMany returns deleted count and missing ids when successful")
+    void removeMany_ReturnsDeletedCountAndMissingIds_WhenSuccessful() {
         final List<Anime> savedList = animeRepository.saveAll(createAnimeListToSave());
-        final List<EntityID> entityIDS =
-                savedList.stream().map(anime -> new EntityID(anime.getId())).toList();
+        final List<EntityID> entityIDS = new ArrayList<>(
+                savedList.stream().map(anime -> new EntityID(anime.getId())).toList());
+        entityIDS.add(new EntityID(999L));
         appUserRepository.save(ADMIN);
 
-        final ResponseEntity<Void> responseEntity =
+        final ResponseEntity<DeleteManyResponse> responseEntity =
                 testRestTemplateRoleAdmin.exchange(
                         "/animes/admin/delete-many",
                         HttpMethod.DELETE,
                         new HttpEntity<>(entityIDS),
-                        Void.class);
+                        DeleteManyResponse.class);
 
         assertThat(responseEntity)
                 .isNotNull()
                 .extracting(ResponseEntity::getStatusCode)
-                .isEqualTo(HttpStatus.NO_CONTENT);
+                .isEqualTo(HttpStatus.OK);
+
+        assertThat(responseEntity.getBody()).isNotNull();
+        assertThat(responseEntity.getBody().getDeleted()).isEqualTo(savedList.size());
+        assertThat(responseEntity.getBody().getMissingIds()).containsExactly(999L);
+        assertThat(animeRepository.count()).isZero();
     }
 
     @Test
@@ -407,6 +484,29 @@ public class AnimeControllerIT {
                 .isEqualTo(HttpStatus.NO_CONTENT);
     }
 
+    @Test
+    @DisplayName("replace returns Conflict status when the version is outdated")
+    void replace_ReturnsConflictStatus_WhenVersionIsOutdated() {
+        final Anime savedAnime = animeRepository.save(createAnimeToSave());
+        final AnimePUTBody animePUTBody = AnimePUTBody.builder()
+                .id(savedAnime.getId())
+                .name("New Name")
+                .version(savedAnime.getVersion() + 1)
+                .build();
+        appUserRepository.save(ADMIN);
+
+        final ResponseEntity<Void> exchange =
+                testRestTemplateRoleAdmin.exchange("/animes/admin",
+                        HttpMethod.PUT,
+                        new HttpEntity<>(animePUTBody),
+                        Void.class);
+
+        assertThat(exchange)
+                .isNotNull()
+                .extracting(ResponseEntity::getStatusCode)
+                .isEqualTo(HttpStatus.CONFLICT);
+    }
+
     @Test
     @DisplayName("replace returns Not Found status when Anime is not found")
     void replace_ReturnsNotFoundStatus_WhenAnimeIsNotFound() {
@@ -424,4 +524,43 @@ public class AnimeControllerIT {
                 .extracting(ResponseEntity::getStatusCode)
                 .isEqualTo(HttpStatus.NOT_FOUND);
     }
+
+    @Test
+    @DisplayName("export returns the Anime after the given id as CSV when successful")
+    void export_ReturnsAnimeAfterId_WhenFormatIsCsv() {
+        final List<Anime> savedList = animeRepository.saveAll(createAnimeListToSave());
+        appUserRepository.save(ADMIN);
+        final Anime first = savedList.get(0);
+
+        final ResponseEntity<String> forEntity = testRestTemplateRoleAdmin.getForEntity(
+                "/animes/admin/export?format=CSV&afterId={afterId}", String.class, first.getId());
+
+        final StringBuilder expected = new StringBuilder("id,name,version\n");
+        savedList.stream()
+                .skip(1)
+                .forEach(anime -> expected.append(anime.getId()).append(',').append(anime.getName())
+                        .append(',').append(anime.getVersion()).append('\n'));
+
+        assertThat(forEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(forEntity.getHeaders().getContentType()).isNotNull();
+        assertThat(forEntity.getHeaders().getContentType().toString()).startsWith("text/csv");
+        assertThat(forEntity.getBody()).isEqualTo(expected.toString());
+    }
+
+    @Test
+    @DisplayName("findAllById returns found Anime in request order and the missing ids when successful")
+    void findAllById_ReturnsAnimeInRequestOrderAndMissingIds_WhenSuccessful() {
+        final List<Anime> savedList = animeRepository.saveAll(createAnimeListToSave());
+        appUserRepository.save(USER);
+        final Anime first = savedList.get(0);
+        final Anime last = savedList.get(savedList.size() - 1);
+
+        final ResponseEntity<AnimeBatchResponse> forEntity = testRestTemplateRoleUser.getForEntity(
+                "/animes/batch?ids={last},999,{first}", AnimeBatchResponse.class, last.getId(), first.getId());
+
+        assertThat(forEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(forEntity.getBody()).isNotNull();
+        assertThat(forEntity.getBody().getContent()).containsExactly(last, first);
+        assertThat(forEntity.getBody().getMissingIds()).containsExactly(999L);
+    }
 }
@@ -0,0 +1,75 @@
+package com.albert.springbootessentials2.Integration;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.repository.AnimeRepository;
+import com.albert.springbootessentials2.request.AnimePOSTBody;
+import com.albert.springbootessentials2.search.AnimeNameIndex;
+import com.albert.springbootessentials2.service.AnimeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * The test profile turns the index off because most tests insert through the repository,
+ * here every write goes through AnimeService so GET /animes/find is answered by the index.
+ * */
+@SpringBootTest(properties = "anime.search.index.enabled=true")
+public class AnimeNameIndexIT {
+    @Autowired
+    private AnimeRepository animeRepository;
+    @Autowired
+    private AnimeService animeService;
+    @Autowired
+    private AnimeNameIndex animeNameIndex;
+
+    @BeforeEach
+    void setup() {
+        animeRepository.deleteAll();
+        animeNameIndex.rebuild();
+    }
+
+    @Test
+    @DisplayName("findAllByName is answered by the index for Anime saved through the service")
+    void findAllByName_ReturnsSavedAnime_WhenIndexIsEnabled() {
+        final Anime saved = animeService.save(AnimePOSTBody.builder().name("Pokémon Adventures").build());
+        animeService.save(AnimePOSTBody.builder().name("Digimon Adventure").build());
+
+        assertThat(animeNameIndex.findIds("POKEMON")).contains(List.of(saved.getId()));
+        assertThat(animeService.findAllByName("pokemon adv"))
+                .extracting(Anime::getId)
+                .containsExactly(saved.getId());
+    }
+
+    @Test
+    @DisplayName("rebuild picks up Anime written behind the service's back and removals drop them")
+    void rebuild_IndexesRowsWrittenOutsideTheService_WhenIndexIsEnabled() {
+        final Anime saved = animeRepository.save(Anime.builder().name("Mononoke").build());
+        assertThat(animeNameIndex.findIds("Mononoke")).contains(List.of());
+
+        animeNameIndex.rebuild();
+        assertThat(animeService.findAllByName("Mononoke"))
+                .extracting(Anime::getId)
+                .containsExactly(saved.getId());
+
+        animeService.remove(saved.getId());
+        assertThat(animeService.findAllByName("Mononoke")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("findAllByName falls back to the database query when the name contains a like wildcard")
+    void findAllByName_UsesDatabaseQuery_WhenNameHasLikeWildcard() {
+        animeService.save(AnimePOSTBody.builder().name("100% Pascal-sensei").build());
+        animeService.save(AnimePOSTBody.builder().name("Mob Psycho 100").build());
+
+        assertThat(animeNameIndex.findIds("100%")).isEmpty();
+        assertThat(animeService.findAllByName("100%"))
+                .extracting(Anime::getId)
+                .containsExactlyElementsOf(animeRepository.findAllByName("100%").stream().map(Anime::getId).toList());
+    }
+}
@@ -0,0 +1,149 @@
+package com.albert.springbootessentials2.Integration;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.domain.AppUser;
+import com.albert.springbootessentials2.repository.AnimeRepository;
+import com.albert.springbootessentials2.repository.AppUserRepository;
+import com.albert.springbootessentials2.request.AnimePOSTBody;
+import com.albert.springbootessentials2.request.AnimePUTBody;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+
+import static com.albert.springbootessentials2.util.AnimeCreator.createAnimeToSave;
+import static com.albert.springbootessentials2.util.AnimePOSTBodyCreator.createAnimePOSTBodyToSave;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+// R2DBC can only reach the database named in the yml, a replaced (random) one would be invisible to it
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class ReactiveAnimeControllerIT {
+    @Autowired
+    private AnimeRepository animeRepository;
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @LocalServerPort
+    private int port;
+
+    private TestRestTemplate testRestTemplateRoleAdmin;
+
+    private static final AppUser ADMIN;
+
+    static {
+        final PasswordEncoder passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
+
+        ADMIN = AppUser.builder()
+                .name("Lucas Cucas")
+                .username("Lucas")
+                .password(passwordEncoder.encode("1234"))
+                .roles("ROLE_USER,ROLE_ADMIN")
+                .build();
+    }
+
+    // the database outlives the context, so every test starts from empty tables
+    @BeforeEach
+    void setup() {
+        animeRepository.deleteAll();
+        appUserRepository.deleteAll();
+        appUserRepository.save(AppUser.builder()
+                .name(ADMIN.getName())
+                .username(ADMIN.getUsername())
+                .password(ADMIN.getPassword())
+                .roles(ADMIN.getRoles())
+                .build());
+
+        testRestTemplateRoleAdmin = new TestRestTemplate(new RestTemplateBuilder()
+                .rootUri("http://localhost:" + port)
+                .basicAuthentication(ADMIN.getUsername(), "1234"));
+    }
+
+    @Test
+    @DisplayName("findById returns Anime saved through JPA when successful")
+    void findById_ReturnsAnime_WhenSuccessful() {
+        final Anime savedAnime = animeRepository.save(createAnimeToSave());
+
+        final ResponseEntity<Anime> forEntity = testRestTemplateRoleAdmin
+                .getForEntity("/reactive/animes/{id}", Anime.class, savedAnime.getId());
+
+        assertThat(forEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(forEntity.getBody()).isEqualTo(savedAnime);
+    }
+
+    @Test
+    @DisplayName("findById returns Not Found status when Anime is not found")
+    void findById_ReturnsNotFoundStatus_WhenAnimeIsNotFound() {
+        final ResponseEntity<Anime> forEntity = testRestTemplateRoleAdmin
+                .getForEntity("/reactive/animes/{id}", Anime.class, 99L);
+
+        assertThat(forEntity.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    @DisplayName("save and findAllByName return the saved Anime when successful")
+    void saveAndFindAllByName_ReturnSavedAnime_WhenSuccessful() {
+        final AnimePOSTBody animePOSTBody = createAnimePOSTBodyToSave();
+
+        final ResponseEntity<Anime> saved = testRestTemplateRoleAdmin
+                .postForEntity("/reactive/animes/admin", animePOSTBody, Anime.class);
+        final ResponseEntity<List<Anime>> found = testRestTemplateRoleAdmin.exchange(
+                "/reactive/animes/find?name={name}",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<List<Anime>>() {
+                },
+                animePOSTBody.getName());
+
+        assertThat(saved.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(saved.getBody()).isNotNull();
+        assertThat(found.getBody()).containsExactly(saved.getBody());
+    }
+
+    @Test
+    @DisplayName("replace returns Conflict status when the version is outdated")
+    void replace_ReturnsConflictStatus_WhenVersionIsOutdated() {
+        final Anime savedAnime = animeRepository.save(createAnimeToSave());
+        final AnimePUTBody animePUTBody = AnimePUTBody.builder()
+                .id(savedAnime.getId())
+                .name("New Name")
+                .version(savedAnime.getVersion() + 1)
+                .build();
+
+        final ResponseEntity<Void> exchange = testRestTemplateRoleAdmin.exchange("/reactive/animes/admin",
+                HttpMethod.PUT,
+                new HttpEntity<>(animePUTBody),
+                Void.class);
+
+        assertThat(exchange.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    @DisplayName("remove returns void and deletes the Anime when successful")
+    void remove_ReturnsVoid_WhenSuccessful() {
+        final Anime savedAnime = animeRepository.save(createAnimeToSave());
+
+        final ResponseEntity<Void> exchange = testRestTemplateRoleAdmin.exchange("/reactive/animes/admin/{id}",
+                HttpMethod.DELETE,
+                null,
+                Void.class,
+                savedAnime.getId());
+
+        assertThat(exchange.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(animeRepository.existsById(savedAnime.getId())).isFalse();
+    }
+}
@@ -0,0 +1,89 @@
+package com.albert.springbootessentials2.Integration;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.exception.NotFoundException;
+import com.albert.springbootessentials2.repository.AnimeRepository;
+import com.albert.springbootessentials2.request.AnimePOSTBody;
+import com.albert.springbootessentials2.service.AnimeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*
+ * Two in-memory H2 databases, the primary and one replica, hold different rows: whatever a call returns
+ * tells which one it read. Everything goes through the application's JpaTransactionManager.
+ * */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingIT.PRIMARY_URL,
+        "anime.datasource.routing.enabled=true",
+        "anime.datasource.replicas[0].jdbc-url=" + ReplicaRoutingIT.REPLICA_URL,
+        "anime.datasource.replicas[0].username=sa"
+})
+public class ReplicaRoutingIT {
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+    private static final long REPLICA_ONLY_ID = 1000L;
+
+    @Autowired
+    private AnimeRepository animeRepository;
+    @Autowired
+    private AnimeService animeService;
+
+    private final JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    // Hibernate only creates the schema on the primary, the replica gets a copy of the table
+    @BeforeEach
+    void setup() {
+        primary.update("delete from anime");
+        replica.execute("create table if not exists anime (id bigint auto_increment primary key, "
+                + "name varchar(255) not null, version bigint default 0)");
+        replica.update("delete from anime");
+        replica.update("insert into anime (id, name, version) values (?, 'Replica only', 0)", REPLICA_ONLY_ID);
+    }
+
+    @Test
+    @DisplayName("read-only repository calls read the replica")
+    void readOnlyRepositoryCalls_ReadReplica_WhenRoutingIsEnabled() {
+        assertThat(animeRepository.findAllByName("Replica only"))
+                .extracting(Anime::getId)
+                .containsExactly(REPLICA_ONLY_ID);
+        assertThat(animeRepository.findNextById(0L, PageRequest.of(0, 10)))
+                .extracting(Anime::getName)
+                .containsExactly("Replica only");
+        assertThat(animeService.listAllNonPageable())
+                .extracting(Anime::getId)
+                .containsExactly(REPLICA_ONLY_ID);
+    }
+
+    @Test
+    @DisplayName("writes go to the primary and never reach the replica")
+    void save_WritesToPrimary_WhenRoutingIsEnabled() {
+        final Anime saved = animeService.save(AnimePOSTBody.builder().name("Mushishi").build());
+
+        assertThat(primary.queryForList("select name from anime where id = ?", String.class, saved.getId()))
+                .containsExactly("Mushishi");
+        assertThat(replica.queryForList("select name from anime where name = 'Mushishi'", String.class))
+                .isEmpty();
+        // the read-only lookup still goes to the replica, which hasn't caught up
+        assertThat(animeRepository.findAllByName("Mushishi")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("findById fills its cache from the primary, not from the replica")
+    void findById_ReadsPrimary_WhenRoutingIsEnabled() {
+        assertThrows(NotFoundException.class, () -> animeService.findById(REPLICA_ONLY_ID));
+
+        final Anime saved = animeService.save(AnimePOSTBody.builder().name("Texhnolyze").build());
+        assertThat(animeService.findById(saved.getId()).getName()).isEqualTo("Texhnolyze");
+        assertThat(replica.queryForObject("select count(*) from anime", Long.class)).isEqualTo(1L);
+    }
+}
@@ -0,0 +1,45 @@
+package com.albert.springbootessentials2.client;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+@DisplayName("Tests for LeanPageDecoder")
+class LeanPageDecoderTest {
+    private final LeanPageDecoder<Anime> decoder = new LeanPageDecoder<>(
+            new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES), Anime.class);
+
+    @Test
+    @DisplayName("decode reads content and counters and skips pageable and sort")
+    void decode_ReadsContentAndCounters_WhenPageIsValid() throws IOException {
+        final String json = """
+                {"content":[{"id":1,"name":"Mushishi","version":0},{"id":2,"name":"Texhnolyze","version":3}],
+                 "pageable":{"pageNumber":1,"pageSize":2,"sort":{"empty":true,"sorted":false,"unsorted":true},
+                             "offset":2,"paged":true,"unpaged":false},
+                 "last":false,"totalElements":7,"totalPages":4,"size":2,"number":1,
+                 "sort":{"empty":true,"sorted":false,"unsorted":true},
+                 "first":false,"numberOfElements":2,"empty":false}
+                """;
+
+        final LeanPage<Anime> page = decoder.decode(json.getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertEquals(new LeanPage<>(List.of(
+                        Anime.builder().id(1L).name("Mushishi").version(0L).build(),
+                        Anime.builder().id(2L).name("Texhnolyze").version(3L).build()),
+                1, 2, 7, 4, false, false), page);
+    }
+
+    @Test
+    @DisplayName("decode throws IOException when the body is not a page object")
+    void decode_ThrowsIOException_WhenBodyIsNotAnObject() {
+        Assertions.assertThrows(IOException.class,
+                () -> decoder.decode("[1, 2]".getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,319 @@
+package com.albert.springbootessentials2.client;
+
+import lombok.extern.log4j.Log4j2;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Open-model load generator: requests start at a fixed rate whether or not the earlier ones have
+ * answered, like real users arriving, and each latency is measured from the moment its request was
+ * <em>due</em>. A closed loop (N threads send, wait, send) slows down with the server and never sends
+ * the requests that would have queued behind a stall, so its percentiles hide exactly the slow part
+ * (coordinated omission). {@code service} latency, measured from the actual send, is printed too; a
+ * gap between the two means the generator itself fell behind.
+ * <p>
+ * Each request is picked from a weighted mix of operations:
+ * <ul>
+ *     <li>{@code read}: GET /animes/{id} with an id that exists</li>
+ *     <li>{@code search}: GET /animes/find?name= with three letters of an existing name</li>
+ *     <li>{@code page}: GET /animes?page=&size=20</li>
+ *     <li>{@code write}: POST /animes/admin (the user must be an admin)</li>
+ * </ul>
+ * Latencies go into HDR histograms (1 µs to 1 min, 3 significant digits) and a percentile report is
+ * printed per operation. The full distributions are written to {@code target/loadgen-<operation>.hgrm},
+ * which the HdrHistogram plotter reads. Works the same against MySQL (docker-compose) or the app
+ * started with an H2 datasource. Writes insert rows, point it at a throwaway database.
+ * <p>
+ * It lives with the tests, so it isn't packaged with the app. HdrHistogram is the copy Micrometer
+ * brings at runtime scope, which the test classpath includes.
+ * <p>
+ * args: [baseUrl] [requestsPerSecond] [seconds] [mix] [maxInFlight] [username] [password]
+ * <br>
+ * e.g. {@code http://localhost:8080 500 60 read=70,search=15,page=10,write=5 10000 albert 1234}
+ */
+@Log4j2
+public class LoadGenerator {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final Pattern ACCESS_TOKEN = Pattern.compile("\"accessToken\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final Pattern NAME = Pattern.compile("\"name\"\\s*:\\s*\"([^\"]+)\"");
+
+    enum Operation {READ, SEARCH, PAGE, WRITE}
+
+    public static void main(String[] args) throws Exception {
+        final String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        final int rate = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        final int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        final Map<Operation, Integer> mix = parseMix(args.length > 3 ? args[3] : "read=70,search=15,page=10,write=5");
+        final int maxInFlight = args.length > 4 ? Integer.parseInt(args[4]) : 10_000;
+        final String username = args.length > 5 ? args[5] : "albert";
+        final String password = args.length > 6 ? args[6] : "1234";
+
+        final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        final String authorization = authorization(httpClient, baseUrl, username, password);
+        final Catalog catalog = Catalog.load(httpClient, baseUrl, authorization);
+        final LoadGenerator loadGenerator = new LoadGenerator(httpClient, baseUrl, authorization, catalog, mix, maxInFlight);
+
+        log.info("Warming up for {}s at {} req/s, {} anime in the catalog", Math.max(1, seconds / 5), rate, catalog.ids().size());
+        loadGenerator.run(rate, Math.max(1, seconds / 5));
+        loadGenerator.reset();
+
+        log.info("Running for {}s at {} req/s with {}", seconds, rate, mix);
+        loadGenerator.run(rate, seconds);
+        loadGenerator.report(rate, seconds);
+    }
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final String authorization;
+    private final Catalog catalog;
+    private final Operation[] weightedOperations;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final AtomicLong writeSequence = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+
+    LoadGenerator(HttpClient httpClient, String baseUrl, String authorization, Catalog catalog,
+                  Map<Operation, Integer> mix, int maxInFlight) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.authorization = authorization;
+        this.catalog = catalog;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+
+        final List<Operation> weighted = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(operation);
+            }
+        });
+        this.weightedOperations = weighted.toArray(Operation[]::new);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    void run(int rate, int seconds) throws InterruptedException {
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        final long start = System.nanoTime();
+        final long total = (long) rate * seconds;
+
+        for (long i = 0; i < total; i++) {
+            final long due = start + i * intervalNanos;
+            long now;
+            while ((now = System.nanoTime()) < due) {
+                LockSupport.parkNanos(due - now);
+            }
+            // a full client can't send, the request counts as dropped instead of silently shifting the schedule
+            if (!inFlight.tryAcquire()) {
+                dropped.increment();
+                continue;
+            }
+            send(pick(), due);
+        }
+        inFlight.acquire(maxInFlight);
+        inFlight.release(maxInFlight);
+    }
+
+    private void send(Operation operation, long due) {
+        final HttpRequest request = request(operation);
+        final long sent = System.nanoTime();
+        final int expectedStatus = operation == Operation.WRITE ? 201 : 200;
+
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, throwable) -> {
+                    final long end = System.nanoTime();
+                    final Stats operationStats = stats.get(operation);
+                    if (throwable == null && response.statusCode() == expectedStatus) {
+                        operationStats.response().recordValue(micros(end - due));
+                        operationStats.service().recordValue(micros(end - sent));
+                    } else {
+                        operationStats.errors().increment();
+                    }
+                    inFlight.release();
+                });
+    }
+
+    private Operation pick() {
+        return weightedOperations[ThreadLocalRandom.current().nextInt(weightedOperations.length)];
+    }
+
+    private HttpRequest request(Operation operation) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final HttpRequest.Builder builder = switch (operation) {
+            case READ -> HttpRequest.newBuilder(URI.create(baseUrl + "/animes/" + catalog.randomId(random)));
+            case SEARCH -> HttpRequest.newBuilder(URI.create(baseUrl + "/animes/find?name="
+                    + URLEncoder.encode(catalog.randomTrigram(random), StandardCharsets.UTF_8)));
+            case PAGE -> HttpRequest.newBuilder(URI.create(baseUrl + "/animes?size=20&page="
+                    + random.nextInt(Math.max(1, catalog.ids().size() / 20))));
+            case WRITE -> HttpRequest.newBuilder(URI.create(baseUrl + "/animes/admin"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"name\":\"Load generator " + writeSequence.incrementAndGet() + "\"}"));
+        };
+        return builder.header("Authorization", authorization)
+                .timeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    void reset() {
+        stats.values().forEach(Stats::reset);
+        dropped.reset();
+    }
+
+    void report(int rate, int seconds) throws IOException {
+        final StringBuilder report = new StringBuilder()
+                .append(String.format("%n%d req/s for %ds, %d dropped by the client (raise maxInFlight if not 0)%n",
+                        rate, seconds, dropped.sum()))
+                .append(String.format("%-8s %-9s %9s %9s %9s %9s %9s %9s %9s %7s%n",
+                        "op", "latency", "count", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "req/s", "errors"));
+
+        final Path directory = Files.createDirectories(Path.of("target"));
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            final Histogram response = entry.getValue().response();
+            if (response.getTotalCount() == 0 && entry.getValue().errors().sum() == 0)
+                continue;
+            appendRow(report, entry.getKey(), "response", response, seconds, entry.getValue().errors().sum());
+            appendRow(report, entry.getKey(), "service", entry.getValue().service(), seconds, entry.getValue().errors().sum());
+
+            final Path file = directory.resolve("loadgen-" + entry.getKey().name().toLowerCase() + ".hgrm");
+            try (PrintStream printStream = new PrintStream(new FileOutputStream(file.toFile()), false, StandardCharsets.UTF_8)) {
+                // values are recorded in microseconds, the file is in milliseconds
+                response.outputPercentileDistribution(printStream, 1000.0);
+            }
+        }
+        log.info(report);
+    }
+
+    private static void appendRow(StringBuilder report, Operation operation, String latency, Histogram histogram,
+                                  int seconds, long errors) {
+        report.append(String.format("%-8s %-9s %9d %9.2f %9.2f %9.2f %9.2f %9.2f %9.1f %7d%n",
+                operation.name().toLowerCase(),
+                latency,
+                histogram.getTotalCount(),
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(90) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0,
+                histogram.getTotalCount() / (double) seconds,
+                errors));
+    }
+
+    private static long micros(long nanos) {
+        return Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+
+    static Map<Operation, Integer> parseMix(String mix) {
+        final Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            final String[] pair = entry.trim().split("=");
+            if (pair.length != 2)
+                throw new IllegalArgumentException("Mix entries look like read=70, got '" + entry + "'");
+            final int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0)
+                weights.put(Operation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)), weight);
+        }
+        if (weights.isEmpty())
+            throw new IllegalArgumentException("The mix has no operation with a positive weight");
+        return weights;
+    }
+
+    // the bearer token skips BCrypt on every request, Basic is used when the server has no /auth/token
+    private static String authorization(HttpClient httpClient, String baseUrl, String username, String password)
+            throws IOException, InterruptedException {
+        final String basic = "Basic " + Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        final HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/auth/token"))
+                        .header("Authorization", basic)
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        final Matcher matcher = ACCESS_TOKEN.matcher(response.body());
+        return response.statusCode() == 200 && matcher.find() ? "Bearer " + matcher.group(1) : basic;
+    }
+
+    private record Stats(Histogram response, Histogram service, LongAdder errors) {
+        Stats() {
+            this(new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3), new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3),
+                    new LongAdder());
+        }
+
+        void reset() {
+            response.reset();
+            service.reset();
+            errors.reset();
+        }
+    }
+
+    /**
+     * Ids and names sampled from the first page of the catalog, so reads hit rows that exist and
+     * searches match something.
+     */
+    record Catalog(List<Long> ids, List<String> names) {
+        static Catalog load(HttpClient httpClient, String baseUrl, String authorization)
+                throws IOException, InterruptedException {
+            final HttpResponse<String> response = httpClient.send(
+                    HttpRequest.newBuilder(URI.create(baseUrl + "/animes?size=1000&sort=id"))
+                            .header("Authorization", authorization)
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200)
+                throw new IllegalStateException("Could not read the catalog: " + response.statusCode());
+
+            final List<Long> ids = new ArrayList<>();
+            final Matcher idMatcher = ID.matcher(response.body());
+            while (idMatcher.find()) {
+                ids.add(Long.parseLong(idMatcher.group(1)));
+            }
+            final List<String> names = new ArrayList<>();
+            final Matcher nameMatcher = NAME.matcher(response.body());
+            while (nameMatcher.find()) {
+                if (nameMatcher.group(1).length() >= 3)
+                    names.add(nameMatcher.group(1));
+            }
+            if (ids.isEmpty() || names.isEmpty())
+                throw new IllegalStateException("The catalog is empty, save some Anime first (e.g. /animes/admin/save-many)");
+            return new Catalog(ids, names);
+        }
+
+        long randomId(ThreadLocalRandom random) {
+            return ids.get(random.nextInt(ids.size()));
+        }
+
+        String randomTrigram(ThreadLocalRandom random) {
+            final String name = names.get(random.nextInt(names.size()));
+            final int from = random.nextInt(name.length() - 2);
+            return name.substring(from, from + 3);
+        }
+    }
+}
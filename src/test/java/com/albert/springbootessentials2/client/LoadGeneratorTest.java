@@ -0,0 +1,45 @@
+package com.albert.springbootessentials2.client;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadGeneratorTest {
+
+    @Test
+    @DisplayName("parseMix returns the weight of every operation, ignoring case and spaces")
+    void parseMix_ReturnsWeights_WhenMixIsValid() {
+        final Map<LoadGenerator.Operation, Integer> mix = LoadGenerator.parseMix("read=70, Search=15,PAGE = 10,write=5");
+
+        assertEquals(Map.of(
+                LoadGenerator.Operation.READ, 70,
+                LoadGenerator.Operation.SEARCH, 15,
+                LoadGenerator.Operation.PAGE, 10,
+                LoadGenerator.Operation.WRITE, 5), mix);
+    }
+
+    @Test
+    @DisplayName("parseMix leaves out the operations with a weight of zero")
+    void parseMix_SkipsOperation_WhenWeightIsZero() {
+        final Map<LoadGenerator.Operation, Integer> mix = LoadGenerator.parseMix("read=100,write=0");
+
+        assertEquals(Map.of(LoadGenerator.Operation.READ, 100), mix);
+    }
+
+    @Test
+    @DisplayName("parseMix throws IllegalArgumentException when an entry is malformed")
+    void parseMix_ThrowsIllegalArgumentException_WhenEntryIsMalformed() {
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.parseMix("read70"));
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.parseMix("read=many"));
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.parseMix("delete=5"));
+    }
+
+    @Test
+    @DisplayName("parseMix throws IllegalArgumentException when no operation has a positive weight")
+    void parseMix_ThrowsIllegalArgumentException_WhenNoWeightIsPositive() {
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.parseMix("read=0,write=0"));
+    }
+}
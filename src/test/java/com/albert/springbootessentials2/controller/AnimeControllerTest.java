@@ -4,6 +4,7 @@ import com.albert.springbootessentials2.domain.Anime;
 import com.albert.springbootessentials2.exception.NotFoundException;
 import com.albert.springbootessentials2.request.AnimePOSTBody;
 import com.albert.springbootessentials2.request.AnimePUTBody;
+import com.albert.springbootessentials2.service.AnimeSaveCoalescer;
 import com.albert.springbootessentials2.service.AnimeService;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,12 +15,18 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 
 import static com.albert.springbootessentials2.util.AnimeCreator.*;
 import static com.albert.springbootessentials2.util.AnimePOSTBodyCreator.*;
@@ -34,15 +41,24 @@ class AnimeControllerTest {
     private AnimeController animeController;
     @Mock
     private AnimeService animeService;
+    @Mock // isEnabled() returns false, so saves go straight to AnimeService
+    private AnimeSaveCoalescer animeSaveCoalescer;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private WebRequest webRequest;
 
     @BeforeEach
     void setup() {
+        request = new MockHttpServletRequest("GET", "/animes");
+        response = new MockHttpServletResponse();
+        webRequest = new ServletWebRequest(request, response);
         final Anime validAnime = createValidAnime();
         final List<Anime> validAnimeList = createValidAnimeList();
         final PageImpl<Anime> animePage = new PageImpl<>(validAnimeList);
 
         BDDMockito.when(animeService.listAll(ArgumentMatchers.any(Pageable.class))).thenReturn(animePage);
         BDDMockito.when(animeService.listAllNonPageable()).thenReturn(validAnimeList);
+        BDDMockito.when(animeService.listingETag()).thenReturn("\"animes-1-0\"");
         BDDMockito.when(animeService.findById(ArgumentMatchers.anyLong())).thenReturn(validAnime);
         BDDMockito.when(animeService.findAllByName(ArgumentMatchers.anyString())).thenReturn(validAnimeList);
         BDDMockito.when(animeService.save(ArgumentMatchers.any(AnimePOSTBody.class))).thenReturn(validAnime);
@@ -171,6 +187,8 @@ class AnimeControllerTest {
                 .isNotNull()
                 .isEqualTo(expectedAnime);
 
+        Assertions.assertThat(responseEntity.getHeaders().getETag()).isEqualTo("\"99-0\"");
+
         BDDMockito.then(animeService).should().findById(ArgumentMatchers.anyLong());
     }
 
@@ -179,7 +197,7 @@ class AnimeControllerTest {
     void listAllNonPageable_ReturnsEmptyList_WhenNoDataIsFound() {
         BDDMockito.when(animeService.listAllNonPageable()).thenReturn(Collections.emptyList());
 
-        final ResponseEntity<List<Anime>> responseEntity = animeController.listAllNonPageable();
+        final ResponseEntity<List<Anime>> responseEntity = animeController.listAllNonPageable(webRequest);
         final List<Anime> animeList = responseEntity.getBody();
 
         Assertions.assertThat(responseEntity)
@@ -199,7 +217,7 @@ class AnimeControllerTest {
     @Test
     @DisplayName("listAllNonPageable return list of Anime when successful")
     void listAllNonPageable_ReturnsListOfAnime_WhenSuccessful() {
-        final ResponseEntity<List<Anime>> responseEntity = animeController.listAllNonPageable();
+        final ResponseEntity<List<Anime>> responseEntity = animeController.listAllNonPageable(webRequest);
         final List<Anime> animeList = responseEntity.getBody();
 //        final Anime expectedAnimeFromService = createValidAnimeList().get(0);
 
@@ -215,13 +233,28 @@ class AnimeControllerTest {
         BDDMockito.then(animeService).should().listAllNonPageable();
     }
 
+    @Test
+    @DisplayName("listAll answers 304 without querying when the ETag still matches")
+    void listAll_ReturnsNull_WhenETagMatches() {
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"animes-1-0\"");
+
+        final ResponseEntity<Page<Anime>> responseEntity = animeController.listAll(Pageable.unpaged(), webRequest);
+
+        // a null return leaves the 304 and the ETag header written by checkNotModified() as the response
+        Assertions.assertThat(responseEntity).isNull();
+        Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        Assertions.assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"animes-1-0\"");
+
+        BDDMockito.then(animeService).should(Mockito.never()).listAll(ArgumentMatchers.any(Pageable.class));
+    }
+
     @Test
     @DisplayName("listAll returns empty page when no data is found")
     void listAll_ReturnsEmptyPage_WhenNoDataIsFound() {
         BDDMockito.when(animeService.listAll(ArgumentMatchers.any(Pageable.class)))
                 .thenReturn(new PageImpl<>(Collections.emptyList()));
 
-        final ResponseEntity<Page<Anime>> responseEntity = animeController.listAll(Pageable.unpaged());
+        final ResponseEntity<Page<Anime>> responseEntity = animeController.listAll(Pageable.unpaged(), webRequest);
         final Page<Anime> animePage = responseEntity.getBody();
 
         Assertions.assertThat(responseEntity)
@@ -242,7 +275,7 @@ class AnimeControllerTest {
         final int expectedListSize = createValidAnimeList().size();
         final String expectedNameOfFirstAnime = createValidAnimeList().get(0).getName();
 
-        final ResponseEntity<Page<Anime>> responseEntity = animeController.listAll(Pageable.unpaged());
+        final ResponseEntity<Page<Anime>> responseEntity = animeController.listAll(Pageable.unpaged(), webRequest);
         final Page<Anime> animePage = responseEntity.getBody();
 
         Assertions.assertThat(responseEntity)
@@ -0,0 +1,96 @@
+package com.albert.springbootessentials2.controller;
+
+import com.albert.springbootessentials2.service.AnimeImportService;
+import com.albert.springbootessentials2.wrapper.ImportJobStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.InputStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+class AnimeImportControllerTest {
+    @InjectMocks
+    private AnimeImportController animeImportController;
+    @Mock
+    private AnimeImportService animeImportService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setup() throws Exception {
+        // standalone, so the ResponseStatusExceptions of the service turn into their status codes
+        mockMvc = MockMvcBuilders.standaloneSetup(animeImportController).build();
+
+        BDDMockito.when(animeImportService.submit(ArgumentMatchers.any(AnimeImportService.Format.class),
+                        ArgumentMatchers.any(InputStream.class)))
+                .thenReturn(ImportJobStatus.builder().id("job-1").state(ImportJobStatus.State.QUEUED).build());
+    }
+
+    @Test
+    @DisplayName("submit returns Accepted status and the job location when the file is accepted")
+    void submit_ReturnsAcceptedStatus_WhenSuccessful() throws Exception {
+        mockMvc.perform(post("/animes/admin/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"name\": \"Mushishi\"}\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "http://localhost/animes/admin/import/job-1"))
+                .andExpect(jsonPath("$.id").value("job-1"))
+                .andExpect(jsonPath("$.state").value("QUEUED"));
+
+        BDDMockito.then(animeImportService).should()
+                .submit(ArgumentMatchers.eq(AnimeImportService.Format.NDJSON), ArgumentMatchers.any(InputStream.class));
+    }
+
+    @Test
+    @DisplayName("submit reads the upload as CSV when the content type is text/csv")
+    void submit_ChoosesCsvFormat_WhenContentTypeIsCsv() throws Exception {
+        mockMvc.perform(post("/animes/admin/import")
+                        .contentType("text/csv")
+                        .content("name\nMushishi\n"))
+                .andExpect(status().isAccepted());
+
+        BDDMockito.then(animeImportService).should()
+                .submit(ArgumentMatchers.eq(AnimeImportService.Format.CSV), ArgumentMatchers.any(InputStream.class));
+    }
+
+    @Test
+    @DisplayName("submit returns Payload Too Large status when the file exceeds the upload limit")
+    void submit_ReturnsPayloadTooLargeStatus_WhenFileIsTooLarge() throws Exception {
+        BDDMockito.when(animeImportService.submit(ArgumentMatchers.any(AnimeImportService.Format.class),
+                        ArgumentMatchers.any(InputStream.class)))
+                .thenThrow(new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Uploads are limited to 1 bytes"));
+
+        mockMvc.perform(post("/animes/admin/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"name\": \"Mushishi\"}\n"))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    @Test
+    @DisplayName("submit returns Service Unavailable status when too many imports are running")
+    void submit_ReturnsServiceUnavailableStatus_WhenImportsAreBusy() throws Exception {
+        BDDMockito.when(animeImportService.submit(ArgumentMatchers.any(AnimeImportService.Format.class),
+                        ArgumentMatchers.any(InputStream.class)))
+                .thenThrow(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many imports running, try again later"));
+
+        mockMvc.perform(post("/animes/admin/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"name\": \"Mushishi\"}\n"))
+                .andExpect(status().isServiceUnavailable());
+    }
+}
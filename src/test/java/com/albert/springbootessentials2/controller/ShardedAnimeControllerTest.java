@@ -0,0 +1,62 @@
+package com.albert.springbootessentials2.controller;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.service.ShardedAnimeService;
+import com.albert.springbootessentials2.util.AnimeCursor;
+import com.albert.springbootessentials2.wrapper.CursorPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+class ShardedAnimeControllerTest {
+    // a snowflake id, above 2^53: as a JSON number it would reach JavaScript as 1234567890123456800
+    private static final long ID = 1234567890123456789L;
+
+    @InjectMocks
+    private ShardedAnimeController shardedAnimeController;
+    @Mock
+    private ShardedAnimeService shardedAnimeService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setup() {
+        mockMvc = MockMvcBuilders.standaloneSetup(shardedAnimeController).build();
+
+        final Anime anime = Anime.builder().id(ID).name("Mushishi").version(0L).build();
+        BDDMockito.when(shardedAnimeService.findById(ID)).thenReturn(anime);
+        BDDMockito.when(shardedAnimeService.listAll(ArgumentMatchers.any(AnimeCursor.class), ArgumentMatchers.anyInt()))
+                .thenReturn(CursorPage.<Anime>builder().content(List.of(anime)).size(20).last(true).build());
+    }
+
+    @Test
+    @DisplayName("findById returns the id as a string so JavaScript clients keep every digit")
+    void findById_ReturnsIdAsString_WhenSuccessful() throws Exception {
+        mockMvc.perform(get("/sharded/animes/{id}", ID))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"id\":\"1234567890123456789\",\"name\":\"Mushishi\",\"version\":0}", true));
+    }
+
+    @Test
+    @DisplayName("listAllByCursor returns the ids as strings and keeps the slice details")
+    void listAllByCursor_ReturnsIdsAsStrings_WhenSuccessful() throws Exception {
+        mockMvc.perform(get("/sharded/animes/scroll"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value("1234567890123456789"))
+                .andExpect(jsonPath("$.size").value(20))
+                .andExpect(jsonPath("$.last").value(true));
+    }
+}
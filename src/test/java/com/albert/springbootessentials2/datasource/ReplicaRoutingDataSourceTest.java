@@ -0,0 +1,175 @@
+package com.albert.springbootessentials2.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Three in-memory H2 databases stand for the primary and two replicas, each one only knows its own name.
+ * */
+@DisplayName("Tests for ReplicaRoutingDataSource")
+class ReplicaRoutingDataSourceTest {
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private final ReadYourWrites readYourWrites = new ReadYourWrites(Duration.ofMinutes(1), 100);
+
+    private HikariDataSource primary;
+    private HikariDataSource replica1;
+    private HikariDataSource replica2;
+    private ReplicaRoutingDataSource replicaDataSource;
+    private DataSourceTransactionManager transactionManager;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate readWriteTransaction;
+
+    @AfterEach
+    void cleanup() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    @Test
+    @DisplayName("read-only transactions alternate between the replicas when the selection is round robin")
+    void readOnlyTransaction_AlternatesReplicas_WhenRoundRobin() {
+        setup(ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+
+        Assertions.assertEquals(List.of("replica1", "replica2", "replica1"),
+                List.of(readOnlyServer(), readOnlyServer(), readOnlyServer()));
+    }
+
+    @Test
+    @DisplayName("read-write transactions and reads outside of a transaction stay on the primary")
+    void readWriteTransaction_UsesPrimary_WhenNotReadOnly() {
+        setup(ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+
+        Assertions.assertEquals("primary", readWriteTransaction.execute(status -> server()));
+        Assertions.assertEquals("primary", server());
+    }
+
+    @Test
+    @DisplayName("read-only transactions use the replica with fewer busy connections when the selection is least loaded")
+    void readOnlyTransaction_UsesIdleReplica_WhenLeastLoaded() throws Exception {
+        setup(ReplicaRoutingDataSource.Selection.LEAST_LOADED);
+
+        try (Connection busy = replica1.getConnection()) {
+            Assertions.assertEquals("replica2", readOnlyServer());
+        }
+        Assertions.assertEquals("replica1", readOnlyServer());
+    }
+
+    @Test
+    @DisplayName("read-only transactions use the primary right after the same user wrote")
+    void readOnlyTransaction_UsesPrimary_WhenUserWroteRecently() {
+        setup(ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+        final MockHttpServletRequest write = request("POST", "albert");
+        readYourWrites.preHandle(write, new MockHttpServletResponse(), new Object());
+        readYourWrites.afterCompletion(write, new MockHttpServletResponse(), new Object(), null);
+
+        Assertions.assertEquals("primary", readOnlyServerDuring(request("GET", "albert")));
+        Assertions.assertEquals("replica1", readOnlyServerDuring(request("GET", "lucas")));
+        // the pin ends with the request
+        Assertions.assertEquals("replica2", readOnlyServer());
+    }
+
+    @Test
+    @DisplayName("read-only transactions served by a replica read the second-level cache without filling it")
+    void readOnlyTransaction_DoesNotFillSecondLevelCache_WhenServedByReplica() {
+        setup(ReplicaRoutingDataSource.Selection.ROUND_ROBIN);
+        final Session session = Mockito.mock(Session.class);
+        final EntityManager entityManager = Mockito.mock(EntityManager.class);
+        Mockito.when(entityManager.unwrap(Session.class)).thenReturn(session);
+        final EntityManagerFactory entityManagerFactory = Mockito.mock(EntityManagerFactory.class);
+        transactionManager.setTransactionExecutionListeners(
+                List.of(new ReplicaReadCacheMode(entityManagerFactory, replicaDataSource)));
+        final MockHttpServletRequest write = request("POST", "albert");
+        readYourWrites.preHandle(write, new MockHttpServletResponse(), new Object());
+        readYourWrites.afterCompletion(write, new MockHttpServletResponse(), new Object(), null);
+
+        // bound for the whole request, as open-in-view does
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            Assertions.assertEquals("replica1", readOnlyServer());
+            Assertions.assertEquals("primary", readWriteTransaction.execute(status -> server()));
+            Assertions.assertEquals("primary", readOnlyServerDuring(request("GET", "albert")));
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+        }
+
+        final InOrder inOrder = Mockito.inOrder(session);
+        inOrder.verify(session).setCacheMode(CacheMode.GET);
+        inOrder.verify(session, Mockito.atLeastOnce()).setCacheMode(CacheMode.NORMAL);
+        Mockito.verify(session, Mockito.times(1)).setCacheMode(CacheMode.GET);
+    }
+
+    private void setup(ReplicaRoutingDataSource.Selection selection) {
+        primary = database("primary");
+        replica1 = database("replica1");
+        replica2 = database("replica2");
+
+        replicaDataSource = new ReplicaRoutingDataSource(primary, List.of(replica1, replica2), selection, readYourWrites);
+        // wired as in DataSourceRoutingConfig
+        final LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(replicaDataSource);
+
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    private HikariDataSource database(String name) {
+        final HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setPoolName(name);
+        dataSource.setMaximumPoolSize(2);
+        pools.add(dataSource);
+
+        final JdbcTemplate setup = new JdbcTemplate(dataSource);
+        setup.execute("create table node (name varchar(20))");
+        setup.update("insert into node (name) values (?)", name);
+        return dataSource;
+    }
+
+    private String readOnlyServerDuring(MockHttpServletRequest request) {
+        readYourWrites.preHandle(request, new MockHttpServletResponse(), new Object());
+        try {
+            return readOnlyServer();
+        } finally {
+            readYourWrites.afterCompletion(request, new MockHttpServletResponse(), new Object(), null);
+        }
+    }
+
+    private String readOnlyServer() {
+        return readOnlyTransaction.execute(status -> server());
+    }
+
+    private String server() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private static MockHttpServletRequest request(String method, String username) {
+        final MockHttpServletRequest request = new MockHttpServletRequest(method, "/animes");
+        request.setUserPrincipal(new TestingAuthenticationToken(username, null));
+        return request;
+    }
+}
@@ -0,0 +1,67 @@
+package com.albert.springbootessentials2.metrics;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.repository.AnimeRepository;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+@DisplayName("Tests for LayerTimingAspect")
+class LayerTimingAspectTest {
+    private SimpleMeterRegistry meterRegistry;
+    private AnimeRepository animeRepositoryMock;
+    private AnimeRepository animeRepository;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        animeRepositoryMock = Mockito.mock(AnimeRepository.class);
+
+        final AspectJProxyFactory proxyFactory = new AspectJProxyFactory(animeRepositoryMock);
+        proxyFactory.addAspect(new LayerTimingAspect(meterRegistry, true,
+                new Duration[]{Duration.ofMillis(100)}, Duration.ofSeconds(10)));
+        animeRepository = proxyFactory.getProxy();
+    }
+
+    @Test
+    @DisplayName("repository calls are timed with the layer, class and method tags")
+    void repositoryCall_IsTimed_WhenItReturns() {
+        BDDMockito.when(animeRepositoryMock.findAllByName("Mushishi"))
+                .thenReturn(List.of(Anime.builder().id(1L).name("Mushishi").build()));
+        // inherited from CrudRepository, still tagged as AnimeRepository
+        BDDMockito.when(animeRepositoryMock.findById(1L)).thenReturn(Optional.empty());
+
+        animeRepository.findAllByName("Mushishi");
+        animeRepository.findAllByName("Mushishi");
+        animeRepository.findById(1L);
+
+        Assertions.assertEquals(2, timer("findAllByName", "none").count());
+        Assertions.assertEquals(1, timer("findById", "none").count());
+    }
+
+    @Test
+    @DisplayName("repository calls that throw are timed with the exception tag")
+    void repositoryCall_IsTimedWithException_WhenItThrows() {
+        BDDMockito.when(animeRepositoryMock.deleteAnimeById(1L)).thenThrow(new IllegalStateException());
+
+        Assertions.assertThrows(IllegalStateException.class, () -> animeRepository.deleteAnimeById(1L));
+
+        Assertions.assertEquals(1, timer("deleteAnimeById", "IllegalStateException").count());
+    }
+
+    private Timer timer(String method, String exception) {
+        return meterRegistry.get(LayerTimingAspect.METRIC_NAME)
+                .tags("layer", "repository", "class", "AnimeRepository", "method", method, "exception", exception)
+                .timer();
+    }
+}
@@ -0,0 +1,79 @@
+package com.albert.springbootessentials2.metrics;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.repository.AnimeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.time.Duration;
+import java.util.List;
+
+@DisplayName("Tests for SlowQueryLog")
+class SlowQueryLogTest {
+    private static final String SELECT_BY_NAME = "select a1_0.id,a1_0.name,a1_0.version from anime a1_0 where a1_0.name like ? escape ''";
+
+    private SimpleMeterRegistry meterRegistry;
+    private AnimeRepository animeRepositoryMock;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        animeRepositoryMock = Mockito.mock(AnimeRepository.class);
+    }
+
+    @Test
+    @DisplayName("repository calls over the threshold are counted as slow")
+    void repositoryCall_IsCountedAsSlow_WhenOverThreshold() {
+        final SlowQueryLog slowQueryLog = new SlowQueryLog(meterRegistry, true, Duration.ZERO);
+        final AnimeRepository animeRepository = proxy(slowQueryLog);
+        // what Hibernate does while the query runs
+        BDDMockito.when(animeRepositoryMock.findAllByName("Mushishi")).thenAnswer(invocation -> {
+            slowQueryLog.inspect(SELECT_BY_NAME);
+            return List.of(Anime.builder().id(1L).name("Mushishi").build());
+        });
+
+        animeRepository.findAllByName("Mushishi");
+
+        Assertions.assertEquals(1, meterRegistry.get("anime.repository.slow")
+                .tags("repository", "AnimeRepository", "method", "findAllByName")
+                .counter().count());
+    }
+
+    @Test
+    @DisplayName("repository calls under the threshold are not counted")
+    void repositoryCall_IsNotCounted_WhenUnderThreshold() {
+        final SlowQueryLog slowQueryLog = new SlowQueryLog(meterRegistry, true, Duration.ofMinutes(1));
+        final AnimeRepository animeRepository = proxy(slowQueryLog);
+
+        animeRepository.findAllByName("Mushishi");
+
+        Assertions.assertNull(meterRegistry.find("anime.repository.slow").counter());
+    }
+
+    @Test
+    @DisplayName("inspect returns the SQL unchanged outside of a repository call")
+    void inspect_ReturnsSqlUnchanged_WhenNoCallIsRunning() {
+        final SlowQueryLog slowQueryLog = new SlowQueryLog(meterRegistry, true, Duration.ZERO);
+
+        Assertions.assertSame(SELECT_BY_NAME, slowQueryLog.inspect(SELECT_BY_NAME));
+    }
+
+    @Test
+    @DisplayName("bindCount ignores question marks inside string literals")
+    void bindCount_IgnoresQuestionMarks_WhenInsideLiterals() {
+        Assertions.assertEquals(1, SlowQueryLog.bindCount(SELECT_BY_NAME));
+        Assertions.assertEquals(2, SlowQueryLog.bindCount("update anime set name=? where id=? and name<>'why?'"));
+    }
+
+    private AnimeRepository proxy(SlowQueryLog slowQueryLog) {
+        final AspectJProxyFactory proxyFactory = new AspectJProxyFactory(animeRepositoryMock);
+        proxyFactory.addAspect(slowQueryLog);
+        return proxyFactory.getProxy();
+    }
+}
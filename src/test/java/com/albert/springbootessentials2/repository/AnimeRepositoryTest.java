@@ -2,15 +2,23 @@ package com.albert.springbootessentials2.repository;
 
 import com.albert.springbootessentials2.domain.Anime;
 import com.albert.springbootessentials2.util.AnimeCreator;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.validation.ConstraintViolationException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @DataJpaTest
 @DisplayName("Tests for AnimeRepository")
@@ -18,6 +26,10 @@ class AnimeRepositoryTest {
     // it's ok to inject directly in tests
     @Autowired
     private AnimeRepository animeRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     @Test
     @DisplayName("save must persist Anime when successful")
@@ -112,4 +124,58 @@ class AnimeRepositoryTest {
 
         Assertions.assertDoesNotThrow(() -> this.animeRepository.deleteById(savedAnime.getId()));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("updateNameIfVersion must update only the Anime with the expected version")
+    void updateNameIfVersion_UpdatesAnime_WhenVersionMatches() {
+        final Anime savedAnime = this.animeRepository.save(AnimeCreator.createAnimeToSave());
+
+        Assertions.assertEquals(0, this.animeRepository.updateNameIfVersion(savedAnime.getId(), "Mushishi", savedAnime.getVersion() + 1));
+        Assertions.assertEquals(1, this.animeRepository.updateNameIfVersion(savedAnime.getId(), "Mushishi", savedAnime.getVersion()));
+
+        final Anime updatedAnime = this.animeRepository.findById(savedAnime.getId()).orElseThrow();
+        Assertions.assertEquals("Mushishi", updatedAnime.getName());
+        Assertions.assertEquals(savedAnime.getVersion() + 1, updatedAnime.getVersion());
+    }
+
+    @Test
+    @DisplayName("findNextByName must return the Anime after the given name and id when successful")
+    void findNextByName_ReturnsAnimeAfterKey_WhenSuccessful() {
+        final List<Anime> savedList = this.animeRepository.saveAll(AnimeCreator.createAnimeListToSave());
+        final Anime jujutsuKaisen = savedList.get(1);
+
+        final List<Anime> nextList = this.animeRepository
+                .findNextByName(jujutsuKaisen.getName(), jujutsuKaisen.getId(), PageRequest.of(0, 2));
+
+        Assertions.assertEquals(List.of("One Piece", "One Punch Man"),
+                nextList.stream().map(Anime::getName).toList());
+    }
+
+    @Test
+    @DisplayName("streamAllAfter must return the Anime after the id without putting them in the second-level cache")
+    // Hibernate doesn't cache what it loads in the transaction that inserted it, the rows are committed first
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void streamAllAfter_DoesNotFillSecondLevelCache_WhenSuccessful() {
+        final List<Anime> savedList = this.animeRepository.saveAll(AnimeCreator.createAnimeListToSave());
+        try {
+            final Cache cache = entityManagerFactory.getCache();
+            cache.evictAll();
+
+            final List<Long> streamedIds = new TransactionTemplate(transactionManager).execute(status -> {
+                try (Stream<Anime> animeStream = this.animeRepository.streamAllAfter(savedList.get(0).getId())) {
+                    return animeStream.map(Anime::getId).toList();
+                }
+            });
+
+            Assertions.assertEquals(savedList.stream().skip(1).map(Anime::getId).toList(), streamedIds);
+            for (Long id : streamedIds) {
+                Assertions.assertFalse(cache.contains(Anime.class, id));
+            }
+            // while a plain lookup does fill it
+            this.animeRepository.findById(streamedIds.get(0));
+            Assertions.assertTrue(cache.contains(Anime.class, streamedIds.get(0)));
+        } finally {
+            this.animeRepository.deleteAll(savedList);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.albert.springbootessentials2.repository;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.util.AnimeCursor;
+import com.albert.springbootessentials2.util.SnowflakeIdGenerator;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/*
+ * Three in-memory H2 databases in MySQL mode stand for the shards.
+ * */
+@DisplayName("Tests for ShardedAnimeRepository")
+class ShardedAnimeRepositoryTest {
+    private static final int SHARDS = 3;
+
+    private List<JdbcTemplate> shards;
+    private ShardedAnimeRepository shardedAnimeRepository;
+
+    @BeforeEach
+    void setup() {
+        final List<DataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) {
+            final HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl("jdbc:h2:mem:shard" + i + "-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+            dataSource.setMaximumPoolSize(2);
+            dataSources.add(dataSource);
+        }
+        shards = dataSources.stream().map(JdbcTemplate::new).toList();
+        shardedAnimeRepository = new ShardedAnimeRepository(dataSources, new SnowflakeIdGenerator(1),
+                Executors.newFixedThreadPool(SHARDS));
+        shardedAnimeRepository.createSchema();
+    }
+
+    @AfterEach
+    void cleanup() throws Exception {
+        shardedAnimeRepository.close();
+    }
+
+    @Test
+    @DisplayName("insert stores every Anime once, on the shard of its id, and uses every shard")
+    void insert_StoresAnimeOnItsShard_WhenSuccessful() {
+        final List<Anime> saved = insertAll(60);
+
+        for (Anime anime : saved) {
+            for (int shard = 0; shard < SHARDS; shard++) {
+                final int expected = shard == shardedAnimeRepository.shardOf(anime.getId()) ? 1 : 0;
+                Assertions.assertEquals(expected, countOn(shard, anime.getId()));
+            }
+        }
+        for (int shard = 0; shard < SHARDS; shard++) {
+            Assertions.assertTrue(shards.get(shard).queryForObject("select count(*) from anime", Long.class) > 0,
+                    "shard " + shard + " is empty");
+        }
+        Assertions.assertEquals(60, saved.stream().map(Anime::getId).distinct().count());
+    }
+
+    @Test
+    @DisplayName("findById, updateName and deleteById reach the shard holding the Anime")
+    void singleIdOperations_ReachTheShardOfTheId_WhenSuccessful() {
+        final Anime saved = shardedAnimeRepository.insert("Mushishi");
+
+        Assertions.assertEquals(saved, shardedAnimeRepository.findById(saved.getId()).orElseThrow());
+        Assertions.assertEquals(1, shardedAnimeRepository.updateName(saved.getId(), "Mushishi Zoku Shou"));
+        Assertions.assertEquals(0, shardedAnimeRepository.updateNameIfVersion(saved.getId(), "Texhnolyze", 0L));
+        Assertions.assertEquals("Mushishi Zoku Shou", shardedAnimeRepository.findById(saved.getId()).orElseThrow().getName());
+        Assertions.assertEquals(1, shardedAnimeRepository.deleteById(saved.getId()));
+        Assertions.assertFalse(shardedAnimeRepository.existsById(saved.getId()));
+    }
+
+    @Test
+    @DisplayName("findAll merges the shards into one page in id order with the total of every shard")
+    void findAll_ReturnsMergedPageInIdOrder_WhenSuccessful() {
+        final List<Anime> saved = insertAll(25);
+
+        final Page<Anime> page = shardedAnimeRepository.findAll(1, 10);
+
+        Assertions.assertEquals(saved.subList(10, 20), page.getContent());
+        Assertions.assertEquals(25, page.getTotalElements());
+        Assertions.assertEquals(3, page.getTotalPages());
+    }
+
+    @Test
+    @DisplayName("findNext walks every shard in name order when the cursor sorts by name")
+    void findNext_ReturnsAnimeInNameOrder_WhenCursorSortsByName() {
+        final List<Anime> saved = insertAll(25);
+        final List<Anime> byName = saved.stream()
+                .sorted(Comparator.comparing(Anime::getName).thenComparing(Anime::getId))
+                .toList();
+
+        final List<Anime> read = new ArrayList<>();
+        AnimeCursor cursor = AnimeCursor.first("name");
+        List<Anime> slice;
+        do {
+            slice = shardedAnimeRepository.findNext(cursor, 7);
+            read.addAll(slice);
+            if (!slice.isEmpty())
+                cursor = cursor.after(slice.get(slice.size() - 1));
+        } while (slice.size() == 7);
+
+        Assertions.assertEquals(byName, read);
+    }
+
+    @Test
+    @DisplayName("findNext keeps the shards' byte order when names only differ in case")
+    void findNext_ReturnsAnimeInByteOrder_WhenNamesDifferInCase() {
+        final List<String> names = List.of("bleach", "Akira", "akame ga kill", "Zetman", "BLEACH", "ergo proxy",
+                "Éden", "eden of the east", "Akira", "zankyou no terror");
+        names.forEach(shardedAnimeRepository::insert);
+
+        final List<String> read = new ArrayList<>();
+        AnimeCursor cursor = AnimeCursor.first("name");
+        List<Anime> slice;
+        do {
+            slice = shardedAnimeRepository.findNext(cursor, 3);
+            slice.forEach(anime -> read.add(anime.getName()));
+            if (!slice.isEmpty())
+                cursor = cursor.after(slice.get(slice.size() - 1));
+        } while (slice.size() == 3);
+
+        Assertions.assertEquals(List.of("Akira", "Akira", "BLEACH", "Zetman", "akame ga kill", "bleach",
+                "eden of the east", "ergo proxy", "zankyou no terror", "Éden"), read);
+    }
+
+    @Test
+    @DisplayName("findAllByName gathers the matches of every shard in id order")
+    void findAllByName_ReturnsMatchesOfEveryShard_WhenSuccessful() {
+        final List<Anime> saved = insertAll(30);
+        final List<Anime> expected = saved.stream()
+                .filter(anime -> anime.getName().contains("7"))
+                .collect(Collectors.toList());
+
+        Assertions.assertEquals(expected, shardedAnimeRepository.findAllByName("7", 0, 20));
+    }
+
+    @Test
+    @DisplayName("findAllByName returns the requested page of the matches across the shards")
+    void findAllByName_ReturnsPageOfMatches_WhenMatchesSpanSeveralPages() {
+        final List<Anime> saved = insertAll(30);
+        final List<Anime> matches = saved.stream()
+                .filter(anime -> anime.getName().contains("1"))
+                .toList();
+
+        Assertions.assertEquals(matches.subList(0, 5), shardedAnimeRepository.findAllByName("1", 0, 5));
+        Assertions.assertEquals(matches.subList(5, 10), shardedAnimeRepository.findAllByName("1", 1, 5));
+        Assertions.assertEquals(matches.subList(10, matches.size()), shardedAnimeRepository.findAllByName("1", 2, 5));
+    }
+
+    @Test
+    @DisplayName("findAllByName matches like wildcards and the escape character literally")
+    void findAllByName_MatchesWildcardsLiterally_WhenNameHasLikeWildcards() {
+        final Anime percent = shardedAnimeRepository.insert("100% Pascal-sensei");
+        final Anime underscore = shardedAnimeRepository.insert("Re_Zero");
+        final Anime bang = shardedAnimeRepository.insert("Chainsaw Man!");
+        shardedAnimeRepository.insert("Re:Zero");
+        shardedAnimeRepository.insert("1000 Pascal");
+
+        Assertions.assertEquals(List.of(percent), shardedAnimeRepository.findAllByName("0%", 0, 20));
+        Assertions.assertEquals(List.of(underscore), shardedAnimeRepository.findAllByName("e_Z", 0, 20));
+        Assertions.assertEquals(List.of(bang), shardedAnimeRepository.findAllByName("n!", 0, 20));
+        Assertions.assertEquals(List.of(underscore), shardedAnimeRepository.findAllByName("_", 0, 20));
+    }
+
+    @Test
+    @DisplayName("merge skips and limits across the sorted lists")
+    void merge_SkipsAndLimits_WhenListsAreSorted() {
+        final List<Anime> merged = ShardedAnimeRepository.merge(List.of(
+                        List.of(anime(1), anime(4), anime(7)),
+                        List.of(),
+                        List.of(anime(2), anime(3), anime(8))),
+                Comparator.comparing(Anime::getId), 2, 3);
+
+        Assertions.assertEquals(List.of(anime(3), anime(4), anime(7)), merged);
+    }
+
+    // ids grow with every insert, so the list is in id order
+    private List<Anime> insertAll(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> shardedAnimeRepository.insert("Anime " + (count - i)))
+                .toList();
+    }
+
+    private int countOn(int shard, long id) {
+        return shards.get(shard).queryForObject("select count(*) from anime where id = ?", Integer.class, id);
+    }
+
+    private static Anime anime(long id) {
+        return Anime.builder().id(id).name("Anime " + id).version(0L).build();
+    }
+}
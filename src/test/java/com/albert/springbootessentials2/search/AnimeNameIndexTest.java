@@ -0,0 +1,119 @@
+package com.albert.springbootessentials2.search;
+
+import com.albert.springbootessentials2.repository.AnimeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.albert.springbootessentials2.util.AnimeCreator.createValidAnimeList;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+@DisplayName("Tests for AnimeNameIndex")
+class AnimeNameIndexTest {
+    @Mock
+    private AnimeRepository animeRepository;
+
+    @Mock // getTransaction() returns null, TransactionTemplate just runs the callback
+    private PlatformTransactionManager transactionManager;
+
+    private AnimeNameIndex animeNameIndex;
+
+    @BeforeEach
+    void setup() {
+        BDDMockito.when(animeRepository.streamAllAfter(0L)).thenAnswer(invocation -> createValidAnimeList().stream());
+
+        animeNameIndex = new AnimeNameIndex(animeRepository, true, 0, 1000, transactionManager);
+        animeNameIndex.rebuild();
+    }
+
+    @Test
+    @DisplayName("findIds returns ids of every name containing the query ignoring case")
+    void findIds_ReturnsMatchingIds_WhenSuccessful() {
+        assertEquals(Optional.of(List.of(4L, 5L)), animeNameIndex.findIds("ONE"));
+        assertEquals(Optional.of(List.of(1L)), animeNameIndex.findIds("experiment"));
+    }
+
+    @Test
+    @DisplayName("rebuild reads the table in a read-write transaction so replica routing keeps it on the primary")
+    void rebuild_ReadsThePrimary_WhenSuccessful() {
+        BDDMockito.verify(transactionManager).getTransaction(ArgumentMatchers.argThat(
+                (TransactionDefinition definition) -> !definition.isReadOnly()));
+    }
+
+    @Test
+    @DisplayName("rebuild streams the table and closes the stream instead of loading every row at once")
+    void rebuild_StreamsTheTable_WhenSuccessful() {
+        final AtomicBoolean closed = new AtomicBoolean();
+        BDDMockito.when(animeRepository.streamAllAfter(0L))
+                .thenAnswer(invocation -> createValidAnimeList().stream().onClose(() -> closed.set(true)));
+
+        animeNameIndex.rebuild();
+
+        assertTrue(closed.get());
+        BDDMockito.verify(animeRepository, BDDMockito.never()).findAll();
+        assertEquals(Optional.of(List.of(4L, 5L)), animeNameIndex.findIds("one"));
+    }
+
+    @Test
+    @DisplayName("findIds returns empty list when every trigram exists but not as a substring")
+    void findIds_ReturnsEmptyList_WhenTrigramsMatchOutOfOrder() {
+        // "jujutsu kaisen" has both "juj" and "uju", but not "jujuj"
+        assertEquals(Optional.of(List.of()), animeNameIndex.findIds("jujuj"));
+        assertEquals(Optional.of(List.of()), animeNameIndex.findIds("xaxa"));
+    }
+
+    @Test
+    @DisplayName("findIds returns empty Optional when the query is shorter than a trigram")
+    void findIds_ReturnsEmptyOptional_WhenQueryIsTooShort() {
+        assertTrue(animeNameIndex.findIds("On").isEmpty());
+    }
+
+    @Test
+    @DisplayName("findIds ignores accents on both the names and the query like the database collation")
+    void findIds_IgnoresAccents_WhenSuccessful() {
+        animeNameIndex.put(6L, "Pokémon");
+
+        assertEquals(Optional.of(List.of(6L)), animeNameIndex.findIds("POKEMON"));
+        assertEquals(Optional.of(List.of(6L)), animeNameIndex.findIds("kémo"));
+    }
+
+    @Test
+    @DisplayName("findIds returns empty Optional when the query contains a like wildcard or escape")
+    void findIds_ReturnsEmptyOptional_WhenQueryHasLikeWildcard() {
+        assertTrue(animeNameIndex.findIds("One%Punch").isEmpty());
+        assertTrue(animeNameIndex.findIds("One_Punch").isEmpty());
+        assertTrue(animeNameIndex.findIds("One\\%").isEmpty());
+    }
+
+    @Test
+    @DisplayName("findIds returns empty Optional when the index is disabled")
+    void findIds_ReturnsEmptyOptional_WhenDisabled() {
+        final AnimeNameIndex disabledIndex = new AnimeNameIndex(animeRepository, false, 0, 1000, transactionManager);
+        disabledIndex.rebuild();
+
+        assertTrue(disabledIndex.findIds("One").isEmpty());
+    }
+
+    @Test
+    @DisplayName("put and remove keep the index up to date")
+    void putAndRemove_UpdateIndex_WhenSuccessful() {
+        animeNameIndex.put(4L, "Mob Psycho 100");
+        animeNameIndex.put(6L, "One Outs");
+        animeNameIndex.remove(5L);
+
+        assertEquals(Optional.of(List.of(6L)), animeNameIndex.findIds("one"));
+        assertEquals(Optional.of(List.of(4L)), animeNameIndex.findIds("psycho"));
+    }
+}
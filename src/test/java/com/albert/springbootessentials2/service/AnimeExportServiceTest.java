@@ -0,0 +1,112 @@
+package com.albert.springbootessentials2.service;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+class AnimeExportServiceTest {
+    @Mock
+    private AnimeService animeService;
+
+    private AnimeExportService animeExportService;
+    private SimpleMeterRegistry meterRegistry;
+    private ClosableByteArrayOutputStream response;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        animeExportService = new AnimeExportService(animeService, new ObjectMapper(), meterRegistry);
+        response = new ClosableByteArrayOutputStream();
+
+        final List<Anime> animeList = List.of(
+                Anime.builder().id(1L).name("Mushishi").version(0L).build(),
+                Anime.builder().id(2L).name("One Piece, the movie").version(3L).build());
+        BDDMockito.doAnswer(invocation -> {
+            final Consumer<Anime> consumer = invocation.getArgument(1);
+            animeList.forEach(consumer);
+            return null;
+        }).when(animeService).streamAll(ArgumentMatchers.anyLong(), ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("export writes one JSON object per line when the format is NDJSON")
+    void export_WritesOneObjectPerLine_WhenFormatIsNdjson() throws IOException {
+        animeExportService.export(AnimeExportService.Format.NDJSON, false, 0L, response);
+
+        assertEquals("""
+                {"id":1,"name":"Mushishi","version":0}
+                {"id":2,"name":"One Piece, the movie","version":3}
+                """, response.toString(StandardCharsets.UTF_8));
+        assertFalse(response.closed);
+        assertEquals(2, meterRegistry.get("anime.export.rows").tag("format", "ndjson").counter().count());
+    }
+
+    @Test
+    @DisplayName("export writes a header and quotes names with commas when the format is CSV")
+    void export_WritesHeaderAndQuotedNames_WhenFormatIsCsv() throws IOException {
+        animeExportService.export(AnimeExportService.Format.CSV, false, 0L, response);
+
+        assertEquals("""
+                id,name,version
+                1,Mushishi,0
+                2,"One Piece, the movie",3
+                """, response.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("export writes a complete gzip stream without closing the response when gzip is requested")
+    void export_WritesCompleteGzipStream_WhenGzipIsRequested() throws IOException {
+        animeExportService.export(AnimeExportService.Format.NDJSON, true, 0L, response);
+
+        try (GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(response.toByteArray()))) {
+            assertEquals("""
+                    {"id":1,"name":"Mushishi","version":0}
+                    {"id":2,"name":"One Piece, the movie","version":3}
+                    """, new String(gzipInputStream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertFalse(response.closed);
+        assertEquals(response.size(), meterRegistry.get("anime.export.bytes").tag("format", "ndjson").counter().count());
+    }
+
+    @Test
+    @DisplayName("export rethrows the failure and leaves the response open when the cursor fails")
+    void export_ThrowsAndRecordsAbortedExport_WhenCursorFails() {
+        BDDMockito.doThrow(new IllegalStateException("cursor closed"))
+                .when(animeService).streamAll(ArgumentMatchers.anyLong(), ArgumentMatchers.any());
+
+        assertThrows(IllegalStateException.class,
+                () -> animeExportService.export(AnimeExportService.Format.CSV, true, 0L, response));
+
+        assertFalse(response.closed);
+        assertEquals(1, meterRegistry.get("anime.export").tag("outcome", "aborted").timer().count());
+    }
+
+    // the servlet container closes the real response stream, never the export
+    private static final class ClosableByteArrayOutputStream extends ByteArrayOutputStream {
+        private boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.albert.springbootessentials2.service;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.mapper.AnimeMapper;
+import com.albert.springbootessentials2.util.AnimeMapperCustomImpl;
+import com.albert.springbootessentials2.wrapper.ImportJobStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+class AnimeImportServiceTest {
+    @Mock // insertAll() returns null, the import only counts the rows it sent
+    private AnimeService animeService;
+
+    private AnimeImportService animeImportService;
+    private Path file;
+
+    @BeforeEach
+    void setup() throws IOException {
+        final AnimeMapper animeMapper = new AnimeMapperCustomImpl();
+        animeImportService = new AnimeImportService(animeService, animeMapper, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                2, DataSize.ofMegabytes(1), 1, 1, Duration.ofHours(1));
+        file = Files.createTempFile("anime-import-test-", ".tmp");
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        animeImportService.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    @DisplayName("run imports valid CSV rows in chunks and reports the invalid ones")
+    void run_ImportsValidRowsInChunks_WhenCsvHasHeader() throws IOException {
+        Files.writeString(file, """
+                id,name
+                1,Jujutsu Kaisen
+                2,"One Piece, the movie"
+                3,
+                4,Mushishi
+                """, StandardCharsets.UTF_8);
+        final AnimeImportJob job = new AnimeImportJob("job", AnimeImportService.Format.CSV);
+
+        animeImportService.run(job, file);
+
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<List<Anime>> chunks = ArgumentCaptor.forClass(List.class);
+        BDDMockito.then(animeService).should(BDDMockito.times(2)).insertAll(chunks.capture());
+
+        final ImportJobStatus status = job.status();
+        assertEquals(ImportJobStatus.State.COMPLETED, status.getState());
+        assertEquals(4, status.getRowsRead());
+        assertEquals(3, status.getRowsImported());
+        assertEquals(1, status.getRowsRejected());
+        assertEquals(List.of("line 4: The name must not be empty"), status.getErrors());
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    @DisplayName("run imports NDJSON rows and rejects lines that are not JSON")
+    void run_RejectsInvalidLines_WhenNdjsonIsMalformed() throws IOException {
+        Files.writeString(file, """
+                {"name": "Serial Experiments Lain"}
+                {"name": "Texhnolyze", "year": 2003}
+                not json
+                """, StandardCharsets.UTF_8);
+        final AnimeImportJob job = new AnimeImportJob("job", AnimeImportService.Format.NDJSON);
+
+        animeImportService.run(job, file);
+
+        BDDMockito.then(animeService).should().insertAll(ArgumentMatchers.anyList());
+
+        final ImportJobStatus status = job.status();
+        assertEquals(ImportJobStatus.State.COMPLETED, status.getState());
+        assertEquals(2, status.getRowsImported());
+        assertEquals(List.of("line 3: not a valid NDJSON row"), status.getErrors());
+    }
+
+    @Test
+    @DisplayName("run marks the job as failed when a chunk can not be written")
+    void run_FailsJob_WhenInsertThrows() throws IOException {
+        Files.writeString(file, "Jujutsu Kaisen\n", StandardCharsets.UTF_8);
+        BDDMockito.when(animeService.insertAll(ArgumentMatchers.anyList()))
+                .thenThrow(new IllegalStateException("database is down"));
+        final AnimeImportJob job = new AnimeImportJob("job", AnimeImportService.Format.CSV);
+
+        animeImportService.run(job, file);
+
+        final ImportJobStatus status = job.status();
+        assertEquals(ImportJobStatus.State.FAILED, status.getState());
+        assertEquals(0, status.getRowsImported());
+        assertTrue(status.getErrors().get(0).contains("database is down"));
+    }
+
+    @Test
+    @DisplayName("submit answers 503 without reading the upload when every worker and queue slot is taken")
+    void submit_ThrowsServiceUnavailable_WhenImportsAreBusy() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        BDDMockito.when(animeService.insertAll(ArgumentMatchers.anyList())).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        });
+        // one worker and one queue slot
+        animeImportService.submit(AnimeImportService.Format.CSV, upload("Jujutsu Kaisen\n"));
+        animeImportService.submit(AnimeImportService.Format.CSV, upload("Mushishi\n"));
+
+        final InputStream unread = Mockito.mock(InputStream.class);
+        final ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> animeImportService.submit(AnimeImportService.Format.CSV, unread));
+        release.countDown();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        BDDMockito.then(unread).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("submit answers 413 and frees its slot when the upload is larger than the limit")
+    void submit_ThrowsPayloadTooLarge_WhenUploadExceedsLimit() throws IOException {
+        final byte[] tooLarge = new byte[(int) DataSize.ofMegabytes(1).toBytes() + 1];
+
+        for (int i = 0; i < 3; i++) {
+            final ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                    () -> animeImportService.submit(AnimeImportService.Format.CSV, new ByteArrayInputStream(tooLarge)));
+            assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, exception.getStatusCode());
+        }
+
+        // more rejections than slots, so none was kept
+        assertNotNull(animeImportService.submit(AnimeImportService.Format.CSV, upload("Mushishi\n")).getId());
+    }
+
+    private static InputStream upload(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
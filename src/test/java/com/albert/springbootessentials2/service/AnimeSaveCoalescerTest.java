@@ -0,0 +1,208 @@
+package com.albert.springbootessentials2.service;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.mapper.AnimeMapper;
+import com.albert.springbootessentials2.request.AnimePOSTBody;
+import com.albert.springbootessentials2.util.AnimeMapperCustomImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+class AnimeSaveCoalescerTest {
+    private static final int SAVES = 20;
+
+    @Mock
+    private AnimeService animeService;
+
+    private AnimeSaveCoalescer animeSaveCoalescer;
+
+    @AfterEach
+    void cleanup() throws InterruptedException {
+        animeSaveCoalescer.stop();
+    }
+
+    private void start(boolean enabled) {
+        start(enabled, new AnimeMapperCustomImpl(), Duration.ofSeconds(10));
+    }
+
+    private void start(boolean enabled, AnimeMapper animeMapper, Duration timeout) {
+        animeSaveCoalescer = new AnimeSaveCoalescer(animeService, animeMapper, new SimpleMeterRegistry(),
+                enabled, Duration.ofMillis(200), SAVES, 100, timeout, SAVES);
+        animeSaveCoalescer.start();
+    }
+
+    @Test
+    @DisplayName("save returns each caller its own Anime and inserts concurrent saves together")
+    void save_ReturnsOwnAnimeAndCoalescesInserts_WhenSavesAreConcurrent() throws Exception {
+        final AtomicLong ids = new AtomicLong();
+        final AtomicInteger inserts = new AtomicInteger();
+        BDDMockito.when(animeService.insertAll(ArgumentMatchers.anyList())).thenAnswer(invocation -> {
+            inserts.incrementAndGet();
+            final List<Anime> animeList = invocation.getArgument(0);
+            return animeList.stream()
+                    .map(anime -> Anime.builder().id(ids.incrementAndGet()).name(anime.getName()).version(0L).build())
+                    .toList();
+        });
+        start(true);
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(SAVES);
+        final CountDownLatch ready = new CountDownLatch(1);
+        final List<Future<Anime>> futures = new ArrayList<>();
+        for (int i = 0; i < SAVES; i++) {
+            final String name = "Anime " + i;
+            futures.add(executorService.submit(() -> {
+                ready.await();
+                return animeSaveCoalescer.save(AnimePOSTBody.builder().name(name).build());
+            }));
+        }
+        ready.countDown();
+
+        for (int i = 0; i < SAVES; i++) {
+            final Anime savedAnime = futures.get(i).get();
+            assertEquals("Anime " + i, savedAnime.getName());
+            assertNotNull(savedAnime.getId());
+        }
+        executorService.shutdown();
+
+        assertTrue(inserts.get() < SAVES, "expected fewer inserts than saves, got " + inserts.get());
+        BDDMockito.then(animeService).should(Mockito.never()).save(ArgumentMatchers.any(AnimePOSTBody.class));
+    }
+
+    @Test
+    @DisplayName("save inserts the rows of a failed batch one by one so only the bad row's caller fails")
+    void save_FailsOnlyTheBadRow_WhenBatchFails() throws Exception {
+        final String badName = "x".repeat(256);
+        final AtomicLong ids = new AtomicLong();
+        final AtomicInteger largestInsert = new AtomicInteger();
+        BDDMockito.when(animeService.insertAll(ArgumentMatchers.anyList())).thenAnswer(invocation -> {
+            final List<Anime> animeList = invocation.getArgument(0);
+            largestInsert.accumulateAndGet(animeList.size(), Math::max);
+            if (animeList.stream().anyMatch(anime -> anime.getName().equals(badName)))
+                throw new DataIntegrityViolationException("Data too long for column 'name'");
+            return animeList.stream()
+                    .map(anime -> Anime.builder().id(ids.incrementAndGet()).name(anime.getName()).version(0L).build())
+                    .toList();
+        });
+        start(true);
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(SAVES);
+        final CountDownLatch ready = new CountDownLatch(1);
+        final List<Future<Anime>> futures = new ArrayList<>();
+        for (int i = 0; i < SAVES; i++) {
+            final String name = i == 0 ? badName : "Anime " + i;
+            futures.add(executorService.submit(() -> {
+                ready.await();
+                return animeSaveCoalescer.save(AnimePOSTBody.builder().name(name).build());
+            }));
+        }
+        ready.countDown();
+
+        final ExecutionException badRowException = assertThrows(ExecutionException.class, () -> futures.get(0).get());
+        assertInstanceOf(DataIntegrityViolationException.class, badRowException.getCause());
+        for (int i = 1; i < SAVES; i++) {
+            final Anime savedAnime = futures.get(i).get();
+            assertEquals("Anime " + i, savedAnime.getName());
+            assertNotNull(savedAnime.getId());
+        }
+        executorService.shutdown();
+
+        assertTrue(largestInsert.get() > 1, "expected the bad row to be part of a coalesced insert");
+    }
+
+    @Test
+    @DisplayName("save throws the insert exception when its row can't be inserted")
+    void save_ThrowsInsertException_WhenBatchFails() {
+        BDDMockito.when(animeService.insertAll(ArgumentMatchers.anyList()))
+                .thenThrow(new IllegalStateException("database is down"));
+        start(true);
+
+        final AnimePOSTBody animePOSTBody = AnimePOSTBody.builder().name("Mushishi").build();
+        assertThrows(IllegalStateException.class, () -> animeSaveCoalescer.save(animePOSTBody));
+    }
+
+    @Test
+    @DisplayName("save runs AnimeService.save on the caller's thread when coalescing is disabled")
+    void save_DelegatesToAnimeService_WhenDisabled() {
+        final Anime savedAnime = Anime.builder().id(1L).name("Mushishi").version(0L).build();
+        BDDMockito.when(animeService.save(ArgumentMatchers.any(AnimePOSTBody.class))).thenReturn(savedAnime);
+        start(false);
+
+        assertEquals(savedAnime, animeSaveCoalescer.save(AnimePOSTBody.builder().name("Mushishi").build()));
+        BDDMockito.then(animeService).should(Mockito.never()).insertAll(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    @DisplayName("save runs on the caller's thread when stop drained the queue right before the save was queued")
+    void save_DelegatesToAnimeService_WhenStoppedWhileQueueing() {
+        final Anime savedAnime = Anime.builder().id(1L).name("Mushishi").version(0L).build();
+        BDDMockito.when(animeService.save(ArgumentMatchers.any(AnimePOSTBody.class))).thenReturn(savedAnime);
+        // the mapper runs between the running check and the offer, stopping there loses the race on purpose
+        start(true, new AnimeMapperCustomImpl() {
+            @Override
+            public Anime toAnime(AnimePOSTBody animePOSTBody) {
+                try {
+                    animeSaveCoalescer.stop();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return super.toAnime(animePOSTBody);
+            }
+        }, Duration.ofSeconds(10));
+
+        final Anime anime = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> animeSaveCoalescer.save(AnimePOSTBody.builder().name("Mushishi").build()));
+
+        assertEquals(savedAnime, anime);
+        BDDMockito.then(animeService).should(Mockito.never()).insertAll(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    @DisplayName("save throws Service Unavailable when its batch does not commit within the timeout")
+    void save_ThrowsServiceUnavailable_WhenBatchTimesOut() {
+        final CountDownLatch release = new CountDownLatch(1);
+        BDDMockito.when(animeService.insertAll(ArgumentMatchers.anyList())).thenAnswer(invocation -> {
+            release.await();
+            return List.of();
+        });
+        start(true, new AnimeMapperCustomImpl(), Duration.ofMillis(100));
+
+        final ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> animeSaveCoalescer.save(AnimePOSTBody.builder().name("Mushishi").build()));
+        release.countDown();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("the constructor rejects a max batch size larger than the insert chunk size")
+    void constructor_ThrowsIllegalStateException_WhenMaxBatchSizeExceedsChunkSize() {
+        assertThrows(IllegalStateException.class, () -> new AnimeSaveCoalescer(animeService, new AnimeMapperCustomImpl(),
+                new SimpleMeterRegistry(), true, Duration.ofMillis(2), 501, 100, Duration.ofSeconds(30), 500));
+        // cleanup() needs a coalescer to stop
+        start(false);
+    }
+}
@@ -0,0 +1,140 @@
+package com.albert.springbootessentials2.service;
+
+import com.albert.springbootessentials2.config.CacheConfig;
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.exception.NotFoundException;
+import com.albert.springbootessentials2.mapper.AnimeMapper;
+import com.albert.springbootessentials2.repository.AnimeBatchRepository;
+import com.albert.springbootessentials2.repository.AnimeRepository;
+import com.albert.springbootessentials2.repository.AnimeSecondLevelCache;
+import com.albert.springbootessentials2.request.EntityIDs;
+import com.albert.springbootessentials2.search.AnimeNameIndex;
+import com.albert.springbootessentials2.util.AnimeChangeCounter;
+import com.albert.springbootessentials2.util.SingleFlight;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.internal.verification.Times;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static com.albert.springbootessentials2.util.AnimeCreator.createValidAnime;
+import static com.albert.springbootessentials2.util.AnimePUTBodyCreator.createAnimePUTBodyToUpdate;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs AnimeService behind the real caching proxy and CacheManager, only the collaborators are mocks.
+ */
+@SpringBootTest(classes = {CacheConfig.class, AnimeService.class, SingleFlight.class, SimpleMeterRegistry.class},
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class AnimeServiceCacheTest {
+    @Autowired
+    private AnimeService animeService;
+    @Autowired
+    private CacheManager cacheManager;
+    @MockBean
+    private AnimeRepository animeRepository;
+    @MockBean
+    private AnimeBatchRepository animeBatchRepository;
+    @MockBean
+    private AnimeSecondLevelCache animeSecondLevelCache;
+    @MockBean
+    private AnimeMapper animeMapper;
+    @MockBean
+    private AnimeNameIndex animeNameIndex;
+    @MockBean
+    private AnimeChangeCounter animeChangeCounter;
+    @MockBean
+    private Validator validator;
+    @MockBean
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setup() {
+        cacheManager.getCache(CacheConfig.ANIME_CACHE).clear();
+
+        BDDMockito.when(animeRepository.findById(ArgumentMatchers.anyLong()))
+                .thenReturn(Optional.of(createValidAnime()));
+        BDDMockito.when(animeRepository.updateName(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString()))
+                .thenReturn(1);
+        BDDMockito.when(animeRepository.deleteAnimeById(ArgumentMatchers.anyLong()))
+                .thenReturn(1);
+    }
+
+    @Test
+    @DisplayName("findById serves the second call from the cache when the anime was found")
+    void findById_ServesCachedAnime_WhenCalledTwice() {
+        final Anime first = animeService.findById(99L);
+        final Anime second = animeService.findById(99L);
+
+        assertSame(first, second);
+        BDDMockito.then(animeRepository).should(new Times(1)).findById(99L);
+    }
+
+    @Test
+    @DisplayName("findById does not cache a miss")
+    void findById_DoesNotCacheMiss_WhenAnimeIsNotFound() {
+        BDDMockito.when(animeRepository.findById(ArgumentMatchers.anyLong()))
+                .thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> animeService.findById(99L));
+        assertNull(cacheManager.getCache(CacheConfig.ANIME_CACHE).get(99L));
+        assertThrows(NotFoundException.class, () -> animeService.findById(99L));
+
+        BDDMockito.then(animeRepository).should(new Times(2)).findById(99L);
+    }
+
+    @Test
+    @DisplayName("replace evicts the cached anime")
+    void replace_EvictsCachedAnime_WhenSuccessful() {
+        animeService.findById(99L);
+
+        animeService.replace(createAnimePUTBodyToUpdate());
+
+        assertNull(cacheManager.getCache(CacheConfig.ANIME_CACHE).get(99L));
+        animeService.findById(99L);
+        BDDMockito.then(animeRepository).should(new Times(2)).findById(99L);
+    }
+
+    @Test
+    @DisplayName("remove evicts the cached anime")
+    void remove_EvictsCachedAnime_WhenSuccessful() {
+        animeService.findById(99L);
+
+        animeService.remove(99L);
+
+        assertNull(cacheManager.getCache(CacheConfig.ANIME_CACHE).get(99L));
+        animeService.findById(99L);
+        BDDMockito.then(animeRepository).should(new Times(2)).findById(99L);
+    }
+
+    @Test
+    @DisplayName("remove many evicts the ids of every committed chunk even when a later chunk fails")
+    void removeMany_EvictsCommittedChunks_WhenLaterChunkFails() {
+        animeService.findById(1L);
+        animeService.findById(2L);
+        BDDMockito.when(animeBatchRepository.deleteAllById(ArgumentMatchers.any(long[].class), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> {
+                    final Consumer<long[]> onChunkCommitted = invocation.getArgument(1);
+                    onChunkCommitted.accept(new long[]{1L});
+                    throw new QueryTimeoutException("second chunk");
+                });
+
+        assertThrows(QueryTimeoutException.class, () -> animeService.remove(new EntityIDs(new long[]{1L, 2L})));
+
+        assertNull(cacheManager.getCache(CacheConfig.ANIME_CACHE).get(1L));
+        // the second chunk rolled back, its Anime still exists
+        assertNotNull(cacheManager.getCache(CacheConfig.ANIME_CACHE).get(2L));
+    }
+}
@@ -1,25 +1,46 @@
 package com.albert.springbootessentials2.service;
 
+import com.albert.springbootessentials2.datasource.ReadYourWrites;
 import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.exception.ConflictException;
 import com.albert.springbootessentials2.exception.NotFoundException;
 import com.albert.springbootessentials2.mapper.AnimeMapper;
 import com.albert.springbootessentials2.util.AnimeMapperCustomImpl;
+import com.albert.springbootessentials2.repository.AnimeBatchRepository;
 import com.albert.springbootessentials2.repository.AnimeRepository;
+import com.albert.springbootessentials2.repository.AnimeSecondLevelCache;
 import com.albert.springbootessentials2.request.AnimePOSTBody;
+import com.albert.springbootessentials2.request.AnimePUTBody;
+import com.albert.springbootessentials2.request.EntityIDs;
+import com.albert.springbootessentials2.search.AnimeNameIndex;
+import com.albert.springbootessentials2.util.AnimeChangeCounter;
+import com.albert.springbootessentials2.util.AnimeCursor;
+import com.albert.springbootessentials2.util.SingleFlight;
+import com.albert.springbootessentials2.wrapper.AnimeBatchResponse;
+import com.albert.springbootessentials2.wrapper.CursorPage;
+import com.albert.springbootessentials2.wrapper.DeleteManyResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.internal.verification.Times;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static com.albert.springbootessentials2.util.AnimeCreator.*;
 import static com.albert.springbootessentials2.util.AnimePOSTBodyCreator.*;
@@ -32,8 +53,25 @@ class AnimeServiceTest {
     private AnimeService animeService;
     @Mock
     private AnimeRepository animeRepository;
+    @Mock
+    private AnimeBatchRepository animeBatchRepository;
+    @Mock
+    private AnimeSecondLevelCache animeSecondLevelCache;
+    @Mock // validate() returns an empty Set of violations
+    private Validator validator;
     @Spy // Creates a partial mock
     private AnimeMapper animeMapper = new AnimeMapperCustomImpl(); // Dependency inside AnimeService
+    @Mock // findIds() returns an empty Optional, so findAllByName() falls back to the repository
+    private AnimeNameIndex animeNameIndex;
+    @Mock
+    private AnimeChangeCounter animeChangeCounter;
+    @Mock // getTransaction() returns null, TransactionTemplate just runs the callback
+    private PlatformTransactionManager transactionManager;
+    @Mock // getCache() returns null, AnimeServiceCacheTest covers the evictions
+    private CacheManager cacheManager;
+    @Spy // runs every lookup, there is never a concurrent one to join in these tests
+    private SingleFlight singleFlight = new SingleFlight(new SimpleMeterRegistry(),
+            new StaticListableBeanFactory().getBeanProvider(ReadYourWrites.class), true);
 
     @BeforeEach
     void setup() {
@@ -45,16 +83,21 @@ class AnimeServiceTest {
                 .thenReturn(animePage);
         BDDMockito.when(animeRepository.findAll())
                 .thenReturn(validAnimeList);
-        // findById() is used inside remove() and replace() as well
         BDDMockito.when(animeRepository.findById(ArgumentMatchers.anyLong()))
                 .thenReturn(Optional.of(validAnime));
         BDDMockito.when(animeRepository.findAllByName(ArgumentMatchers.anyString()))
                 .thenReturn(validAnimeList);
 
-        // save() is used inside replace() as well
         BDDMockito.when(animeRepository.save(ArgumentMatchers.any(Anime.class)))
                 .thenReturn(validAnime);
-        BDDMockito.doNothing().when(animeRepository).deleteById(ArgumentMatchers.anyLong());
+        // one affected row means the Anime exists (and had the expected version)
+        BDDMockito.when(animeRepository.updateName(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString()))
+                .thenReturn(1);
+        BDDMockito.when(animeRepository.updateNameIfVersion(
+                        ArgumentMatchers.anyLong(), ArgumentMatchers.anyString(), ArgumentMatchers.anyLong()))
+                .thenReturn(1);
+        BDDMockito.when(animeRepository.deleteAnimeById(ArgumentMatchers.anyLong()))
+                .thenReturn(1);
 
 //        BDDMockito.when(animeMapper.toAnime(ArgumentMatchers.any(AnimePOSTBody.class)))
 //                .thenReturn(validAnime);
@@ -65,14 +108,28 @@ class AnimeServiceTest {
     @Test
     @DisplayName("replace Throws NotFoundException when anime is not found")
     void replace_ThrowsNotFoundException_WhenAnimeIsNotFound() {
-        BDDMockito.when(animeRepository.findById(ArgumentMatchers.anyLong()))
-                .thenReturn(Optional.empty());
+        BDDMockito.when(animeRepository.updateName(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString()))
+                .thenReturn(0);
 
         assertThrows(NotFoundException.class, () -> animeService.replace(createAnimePUTBodyToUpdate()));
 
-        BDDMockito.then(animeRepository).should().findById(ArgumentMatchers.anyLong());
-        BDDMockito.then(animeRepository)
-                .should(new Times(0)).save(ArgumentMatchers.any(Anime.class));
+        BDDMockito.then(animeRepository).should().updateName(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString());
+        BDDMockito.then(animeNameIndex)
+                .should(new Times(0)).put(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString());
+    }
+
+    @Test
+    @DisplayName("replace Throws ConflictException when the version is outdated")
+    void replace_ThrowsConflictException_WhenVersionIsOutdated() {
+        final AnimePUTBody animePUTBody = createAnimePUTBodyToUpdate();
+        animePUTBody.setVersion(3L);
+        BDDMockito.when(animeRepository.updateNameIfVersion(
+                        ArgumentMatchers.anyLong(), ArgumentMatchers.anyString(), ArgumentMatchers.anyLong()))
+                .thenReturn(0);
+        BDDMockito.when(animeRepository.existsById(ArgumentMatchers.anyLong()))
+                .thenReturn(true);
+
+        assertThrows(ConflictException.class, () -> animeService.replace(animePUTBody));
     }
 
     @Test
@@ -80,21 +137,21 @@ class AnimeServiceTest {
     void replace_ReturnsVoid_WhenSuccessful() {
         assertDoesNotThrow(() -> animeService.replace(createAnimePUTBodyToUpdate()));
 
-        BDDMockito.then(animeRepository).should().save(ArgumentMatchers.any(Anime.class));
+        BDDMockito.then(animeRepository).should().updateName(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString());
+        BDDMockito.then(animeRepository).should(new Times(0)).findById(ArgumentMatchers.anyLong());
+        BDDMockito.then(animeChangeCounter).should().increment();
     }
 
     @Test
     @DisplayName("remove Throws NotFoundException when anime is not found")
     void remove_ThrowsNotFoundException_WhenAnimeIsNotFound() {
-//        BDDMockito.doThrow(NotFoundException.class).when(animeRepository).findById(ArgumentMatchers.anyLong());
-        BDDMockito.when(animeRepository.findById(ArgumentMatchers.anyLong()))
-                .thenReturn(Optional.empty());
+        BDDMockito.when(animeRepository.deleteAnimeById(ArgumentMatchers.anyLong()))
+                .thenReturn(0);
 
         assertThrows(NotFoundException.class, () -> animeService.remove(77L));
 
-        BDDMockito.then(animeRepository).should().findById(ArgumentMatchers.anyLong());
-        BDDMockito.then(animeRepository)
-                .should(new Times(0)).deleteById(ArgumentMatchers.anyLong());
+        BDDMockito.then(animeNameIndex)
+                .should(new Times(0)).remove(ArgumentMatchers.anyLong());
     }
 
     @Test
@@ -102,7 +159,56 @@ class AnimeServiceTest {
     void remove_ReturnsVoid_WhenSuccessful() {
         assertDoesNotThrow(() -> animeService.remove(77L));
 
-        BDDMockito.then(animeRepository).should().deleteById(ArgumentMatchers.anyLong());
+        BDDMockito.then(animeRepository).should().deleteAnimeById(ArgumentMatchers.anyLong());
+        BDDMockito.then(animeRepository).should(new Times(0)).findById(ArgumentMatchers.anyLong());
+    }
+
+    @Test
+    @DisplayName("remove returns deleted count and missing ids when successful")
+    void remove_ReturnsDeleteManyResponse_WhenSuccessful() {
+        final DeleteManyResponse expected = DeleteManyResponse.builder()
+                .deleted(2)
+                .missingIds(new long[]{3L})
+                .build();
+        BDDMockito.when(animeBatchRepository.deleteAllById(ArgumentMatchers.any(long[].class), ArgumentMatchers.any()))
+                .thenReturn(expected);
+
+        final DeleteManyResponse response = animeService.remove(new EntityIDs(new long[]{1L, 2L, 3L}));
+
+        assertEquals(expected, response);
+        BDDMockito.then(animeRepository)
+                .should(new Times(0)).deleteAllById(ArgumentMatchers.anyIterable());
+    }
+
+    @Test
+    @DisplayName("remove evicts the deleted ids from the second-level cache once their chunk is committed")
+    void remove_EvictsDeletedIdsFromSecondLevelCache_WhenChunkIsCommitted() {
+        BDDMockito.when(animeBatchRepository.deleteAllById(ArgumentMatchers.any(long[].class), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> {
+                    final Consumer<long[]> onChunkCommitted = invocation.getArgument(1);
+                    onChunkCommitted.accept(new long[]{1L, 2L});
+                    return DeleteManyResponse.builder().deleted(2).missingIds(new long[]{3L}).build();
+                });
+
+        animeService.remove(new EntityIDs(new long[]{1L, 2L, 3L}));
+
+        BDDMockito.then(animeSecondLevelCache).should().evictAll(new long[]{1L, 2L});
+    }
+
+    @Test
+    @DisplayName("findAllById returns found Anime in request order and the missing ids when successful")
+    void findAllById_ReturnsAnimeInRequestOrderAndMissingIds_WhenSuccessful() {
+        final Anime first = Anime.builder().id(1L).name("Mushishi").version(0L).build();
+        final Anime second = Anime.builder().id(2L).name("Texhnolyze").version(3L).build();
+        BDDMockito.when(animeBatchRepository.findAllById(ArgumentMatchers.any(long[].class)))
+                .thenReturn(Map.of(1L, first, 2L, second));
+
+        final AnimeBatchResponse response = animeService.findAllById(new long[]{2L, 9L, 1L, 2L});
+
+        assertEquals(List.of(second, first), response.getContent());
+        assertArrayEquals(new long[]{9L}, response.getMissingIds());
+        // repeated ids are only looked up once
+        BDDMockito.then(animeBatchRepository).should().findAllById(new long[]{2L, 9L, 1L});
     }
 
     @Test
@@ -117,6 +223,20 @@ class AnimeServiceTest {
         BDDMockito.then(animeRepository).should().save(ArgumentMatchers.any(Anime.class));
     }
 
+    @Test
+    @DisplayName("saveMany returns saved anime in request order when successful")
+    void saveMany_ReturnsSavedAnimeInRequestOrder_WhenSuccessful() {
+        final List<Anime> validAnimeList = createValidAnimeList();
+        BDDMockito.when(animeBatchRepository.insertAll(ArgumentMatchers.anyList(), ArgumentMatchers.any()))
+                .thenReturn(validAnimeList);
+
+        final List<Anime> savedList = animeService.saveMany(createAnimePOSTBodyListToSave());
+
+        assertEquals(validAnimeList, savedList);
+
+        BDDMockito.then(animeRepository).should(new Times(0)).saveAll(ArgumentMatchers.anyList());
+    }
+
     @Test
     @DisplayName("findAllByName returns empty list of anime when no data is found")
     void findAllByName_ReturnsEmptyPageOfAnime_WhenNoDataIsFound() {
@@ -144,6 +264,22 @@ class AnimeServiceTest {
         BDDMockito.then(animeRepository).should().findAllByName(ArgumentMatchers.anyString());
     }
 
+    @Test
+    @DisplayName("findAllByName loads the ids answered by the index when successful")
+    void findAllByName_LoadsIdsFromIndex_WhenIndexAnswers() {
+        final List<Anime> validAnimeList = createValidAnimeList();
+        BDDMockito.when(animeNameIndex.findIds(ArgumentMatchers.anyString()))
+                .thenReturn(Optional.of(List.of(4L, 5L)));
+        BDDMockito.when(animeRepository.findAllById(ArgumentMatchers.anyIterable()))
+                .thenReturn(List.of(validAnimeList.get(4), validAnimeList.get(3)));
+
+        final List<Anime> animeList = animeService.findAllByName("one");
+
+        assertEquals(List.of(validAnimeList.get(3), validAnimeList.get(4)), animeList);
+
+        BDDMockito.then(animeRepository).should(new Times(0)).findAllByName(ArgumentMatchers.anyString());
+    }
+
     @Test
     @DisplayName("findById throws NotFoundException when anime is not found")
     void findById_ThrowsNotFoundException_WhenAnimeIsNotFound() {
@@ -167,6 +303,15 @@ class AnimeServiceTest {
         BDDMockito.then(animeRepository).should().findById(ArgumentMatchers.anyLong());
     }
 
+    @Test
+    @DisplayName("findById reads in a read-write transaction, so a replica never fills the cache")
+    void findById_ReadsInReadWriteTransaction_WhenCacheIsFilled() {
+        animeService.findById(0L);
+
+        BDDMockito.then(transactionManager).should()
+                .getTransaction(ArgumentMatchers.argThat(definition -> !definition.isReadOnly()));
+    }
+
     @Test
     @DisplayName("listAllNonPageable returns empty list of anime when no data is found")
     void listAllNonPageable_ReturnsEmptyPageOfAnime_WhenNoDataIsFound() {
@@ -194,6 +339,52 @@ class AnimeServiceTest {
         BDDMockito.then(animeRepository).should().findAll();
     }
 
+    @Test
+    @DisplayName("streamAll hands every anime read from the cursor to the consumer")
+    void streamAll_HandsEveryAnimeToConsumer_WhenSuccessful() {
+        final List<Anime> validAnimeList = createValidAnimeList();
+        BDDMockito.when(animeRepository.streamAllAfter(ArgumentMatchers.anyLong()))
+                .thenReturn(validAnimeList.stream());
+
+        final List<Anime> streamedList = new ArrayList<>();
+        animeService.streamAll(0L, streamedList::add);
+
+        assertEquals(validAnimeList, streamedList);
+        BDDMockito.then(animeRepository).should(new Times(0)).findAll();
+    }
+
+    @Test
+    @DisplayName("listAll by cursor returns a slice with the next cursor when more rows exist")
+    void listAllByCursor_ReturnsSliceWithNextCursor_WhenMoreRowsExist() {
+        final List<Anime> validAnimeList = createValidAnimeList();
+        BDDMockito.when(animeRepository.findNextById(ArgumentMatchers.anyLong(), ArgumentMatchers.any(Pageable.class)))
+                .thenReturn(validAnimeList.subList(0, 3));
+
+        final CursorPage<Anime> cursorPage = animeService.listAll(AnimeCursor.first("id"), 2);
+
+        assertEquals(validAnimeList.subList(0, 2), cursorPage.getContent());
+        assertFalse(cursorPage.isLast());
+        assertEquals(2L, AnimeCursor.decode(cursorPage.getNextCursor()).lastId());
+
+        BDDMockito.then(animeRepository).should(new Times(0)).count();
+    }
+
+    @Test
+    @DisplayName("listAll by cursor returns the last slice without next cursor when no more rows exist")
+    void listAllByCursor_ReturnsLastSlice_WhenNoMoreRowsExist() {
+        final List<Anime> validAnimeList = createValidAnimeList();
+        BDDMockito.when(animeRepository.findNextByName(ArgumentMatchers.anyString(), ArgumentMatchers.anyLong(),
+                        ArgumentMatchers.any(Pageable.class)))
+                .thenReturn(validAnimeList.subList(3, 5));
+
+        final AnimeCursor cursor = new AnimeCursor(AnimeCursor.SortKey.NAME, 3L, "Jujutsu Kaisen");
+        final CursorPage<Anime> cursorPage = animeService.listAll(AnimeCursor.decode(cursor.encode()), 2);
+
+        assertEquals(validAnimeList.subList(3, 5), cursorPage.getContent());
+        assertTrue(cursorPage.isLast());
+        assertNull(cursorPage.getNextCursor());
+    }
+
     @Test
     @DisplayName("listAll returns empty page of anime when no data is found")
     void listAll_ReturnsEmptyPageOfAnime_WhenNoDataIsFound() {
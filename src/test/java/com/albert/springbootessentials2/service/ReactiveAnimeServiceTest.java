@@ -0,0 +1,120 @@
+package com.albert.springbootessentials2.service;
+
+import com.albert.springbootessentials2.domain.Anime;
+import com.albert.springbootessentials2.exception.ConflictException;
+import com.albert.springbootessentials2.exception.NotFoundException;
+import com.albert.springbootessentials2.mapper.AnimeMapper;
+import com.albert.springbootessentials2.repository.AnimeSecondLevelCache;
+import com.albert.springbootessentials2.repository.ReactiveAnimeRepository;
+import com.albert.springbootessentials2.request.AnimePUTBody;
+import com.albert.springbootessentials2.search.AnimeNameIndex;
+import com.albert.springbootessentials2.util.AnimeChangeCounter;
+import com.albert.springbootessentials2.util.AnimeMapperCustomImpl;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.*;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static com.albert.springbootessentials2.util.AnimeCreator.createValidAnime;
+import static com.albert.springbootessentials2.util.AnimePUTBodyCreator.createAnimePUTBodyToUpdate;
+
+@ExtendWith(SpringExtension.class)
+class ReactiveAnimeServiceTest {
+    @InjectMocks
+    private ReactiveAnimeService reactiveAnimeService;
+    @Mock
+    private ReactiveAnimeRepository reactiveAnimeRepository;
+    @Spy
+    private AnimeMapper animeMapper = new AnimeMapperCustomImpl();
+    @Mock
+    private AnimeNameIndex animeNameIndex;
+    @Mock
+    private AnimeChangeCounter animeChangeCounter;
+    @Mock // getCache() returns null, so there is nothing to evict
+    private CacheManager cacheManager;
+    @Mock
+    private AnimeSecondLevelCache animeSecondLevelCache;
+    @Mock
+    private TransactionalOperator transactionalOperator;
+    @Mock
+    private Validator validator;
+
+    @BeforeEach
+    void setup() {
+        final Anime validAnime = createValidAnime();
+
+        BDDMockito.when(reactiveAnimeRepository.findById(ArgumentMatchers.anyLong()))
+                .thenReturn(Mono.just(validAnime));
+        BDDMockito.when(reactiveAnimeRepository.updateName(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString()))
+                .thenReturn(Mono.just(1L));
+        BDDMockito.when(reactiveAnimeRepository.deleteById(ArgumentMatchers.anyLong()))
+                .thenReturn(Mono.just(1L));
+    }
+
+    @Test
+    @DisplayName("findById returns Anime when successful")
+    void findById_ReturnsAnime_WhenSuccessful() {
+        StepVerifier.create(reactiveAnimeService.findById(99L))
+                .expectNext(createValidAnime())
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("findById emits NotFoundException when Anime is not found")
+    void findById_EmitsNotFoundException_WhenAnimeIsNotFound() {
+        BDDMockito.when(reactiveAnimeRepository.findById(ArgumentMatchers.anyLong()))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(reactiveAnimeService.findById(77L))
+                .expectError(NotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("replace completes and updates the index when successful")
+    void replace_Completes_WhenSuccessful() {
+        final AnimePUTBody animePUTBody = createAnimePUTBodyToUpdate();
+
+        StepVerifier.create(reactiveAnimeService.replace(animePUTBody))
+                .verifyComplete();
+
+        BDDMockito.then(animeNameIndex).should().put(animePUTBody.getId(), animePUTBody.getName());
+        BDDMockito.then(animeChangeCounter).should().increment();
+    }
+
+    @Test
+    @DisplayName("replace emits ConflictException when the version is outdated")
+    void replace_EmitsConflictException_WhenVersionIsOutdated() {
+        final AnimePUTBody animePUTBody = createAnimePUTBodyToUpdate();
+        animePUTBody.setVersion(3L);
+        BDDMockito.when(reactiveAnimeRepository.updateNameIfVersion(
+                        ArgumentMatchers.anyLong(), ArgumentMatchers.anyString(), ArgumentMatchers.anyLong()))
+                .thenReturn(Mono.just(0L));
+        BDDMockito.when(reactiveAnimeRepository.existsById(ArgumentMatchers.anyLong()))
+                .thenReturn(Mono.just(true));
+
+        StepVerifier.create(reactiveAnimeService.replace(animePUTBody))
+                .expectError(ConflictException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("remove emits NotFoundException when Anime is not found")
+    void remove_EmitsNotFoundException_WhenAnimeIsNotFound() {
+        BDDMockito.when(reactiveAnimeRepository.deleteById(ArgumentMatchers.anyLong()))
+                .thenReturn(Mono.just(0L));
+
+        StepVerifier.create(reactiveAnimeService.remove(77L))
+                .expectError(NotFoundException.class)
+                .verify();
+
+        BDDMockito.then(animeNameIndex).should(Mockito.never()).remove(ArgumentMatchers.anyLong());
+    }
+}
@@ -16,7 +16,7 @@ public interface AnimeCreator {
      * Returns an Anime with all valid fields. The returned Anime is static generated.
      */
     static Anime createValidAnime() {
-        return Anime.builder().name("Jigoku Shoujo").id(99L).build();
+        return Anime.builder().name("Jigoku Shoujo").id(99L).version(0L).build();
     }
 
     /**
@@ -36,11 +36,11 @@ public interface AnimeCreator {
      */
     static List<Anime> createValidAnimeList() {
         return List.of(
-                Anime.builder().id(1L).name("Serialization Experimentation").build(),
-                Anime.builder().id(2L).name("Jujutsu Kaisen").build(),
-                Anime.builder().id(3L).name("Witch from mercury").build(),
-                Anime.builder().id(4L).name("One Punch Man").build(),
-                Anime.builder().id(5L).name("One Piece").build());
+                Anime.builder().id(1L).name("Serialization Experimentation").version(0L).build(),
+                Anime.builder().id(2L).name("Jujutsu Kaisen").version(0L).build(),
+                Anime.builder().id(3L).name("Witch from mercury").version(0L).build(),
+                Anime.builder().id(4L).name("One Punch Man").version(0L).build(),
+                Anime.builder().id(5L).name("One Piece").version(0L).build());
     }
 
 }
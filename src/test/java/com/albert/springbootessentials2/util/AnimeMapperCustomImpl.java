@@ -14,6 +14,6 @@ public class AnimeMapperCustomImpl implements AnimeMapper {
     }
 
     public Anime toAnime(AnimePUTBody animePUTBody) {
-        return Anime.builder().id(animePUTBody.getId()).name(animePUTBody.getName()).build();
+        return Anime.builder().id(animePUTBody.getId()).name(animePUTBody.getName()).version(animePUTBody.getVersion()).build();
     }
 }
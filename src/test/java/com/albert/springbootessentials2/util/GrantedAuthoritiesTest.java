@@ -0,0 +1,44 @@
+package com.albert.springbootessentials2.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@DisplayName("Tests for GrantedAuthorities")
+class GrantedAuthoritiesTest {
+
+    @Test
+    @DisplayName("fromCsv returns the same immutable Set for the same roles")
+    void fromCsv_ReturnsSharedImmutableSet_WhenRolesRepeat() {
+        final Set<GrantedAuthority> first = GrantedAuthorities.fromCsv("ROLE_USER,ROLE_ADMIN");
+        final Set<GrantedAuthority> second = GrantedAuthorities.fromCsv(new String("ROLE_USER,ROLE_ADMIN"));
+
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"),
+                first.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet()));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> first.clear());
+    }
+
+    @Test
+    @DisplayName("fromCsv shares the authority of a role between different role strings")
+    void fromCsv_SharesAuthorities_WhenRoleStringsDiffer() {
+        final GrantedAuthority fromUser = GrantedAuthorities.fromCsv("ROLE_USER").iterator().next();
+        final GrantedAuthority fromAdmin = GrantedAuthorities.fromCsv("ROLE_ADMIN, ROLE_USER").stream()
+                .filter(authority -> authority.getAuthority().equals("ROLE_USER"))
+                .findFirst()
+                .orElseThrow();
+
+        Assertions.assertSame(fromUser, fromAdmin);
+    }
+
+    @Test
+    @DisplayName("fromCsv returns empty Set when there are no roles")
+    void fromCsv_ReturnsEmptySet_WhenRolesAreBlank() {
+        Assertions.assertTrue(GrantedAuthorities.fromCsv(null).isEmpty());
+        Assertions.assertTrue(GrantedAuthorities.fromCsv(" ").isEmpty());
+    }
+}
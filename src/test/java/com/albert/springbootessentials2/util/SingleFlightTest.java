@@ -0,0 +1,157 @@
+package com.albert.springbootessentials2.util;
+
+import com.albert.springbootessentials2.datasource.ReadYourWrites;
+import com.albert.springbootessentials2.exception.NotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@DisplayName("Tests for SingleFlight")
+class SingleFlightTest {
+    private static final int CALLERS = 8;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReadYourWrites readYourWrites;
+    private SingleFlight singleFlight;
+    private ExecutorService executorService;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        readYourWrites = new ReadYourWrites(Duration.ofMinutes(1), 100);
+        singleFlight = new SingleFlight(meterRegistry,
+                new StaticListableBeanFactory(Map.of("readYourWrites", readYourWrites)).getBeanProvider(ReadYourWrites.class),
+                true);
+        executorService = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void cleanup() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("execute runs one lookup for concurrent calls with the same key")
+    void execute_RunsOneLookup_WhenCallsAreConcurrent() throws Exception {
+        final AtomicInteger lookups = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final List<Future<String>> futures = submitConcurrently(() -> singleFlight.execute("findById", 1L, () -> {
+            lookups.incrementAndGet();
+            await(release);
+            return "Mushishi";
+        }));
+        waitForCollapsed(CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> future : futures) {
+            Assertions.assertEquals("Mushishi", future.get(5, TimeUnit.SECONDS));
+        }
+        Assertions.assertEquals(1, lookups.get());
+    }
+
+    @Test
+    @DisplayName("execute throws the lookup exception to every waiting call and forgets it")
+    void execute_ThrowsLookupExceptionAndForgetsIt_WhenLookupFails() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final List<Future<String>> futures = submitConcurrently(() -> singleFlight.execute("findById", 2L, () -> {
+            await(release);
+            throw new NotFoundException("Anime not found");
+        }));
+        waitForCollapsed(CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> future : futures) {
+            final ExecutionException e = Assertions.assertThrows(ExecutionException.class,
+                    () -> future.get(5, TimeUnit.SECONDS));
+            Assertions.assertInstanceOf(NotFoundException.class, e.getCause());
+        }
+        // the failure is not kept, the next call runs its own lookup
+        Assertions.assertEquals("found", singleFlight.execute("findById", 2L, () -> "found"));
+    }
+
+    @Test
+    @DisplayName("execute does not share lookups between different keys or operations")
+    void execute_RunsSeparateLookups_WhenKeysDiffer() {
+        Assertions.assertEquals("by id", singleFlight.execute("findById", 3L, () ->
+                singleFlight.execute("findAllByName", 3L, () -> "by name").replace("name", "id")));
+        Assertions.assertEquals(0, meterRegistry.find("anime.single-flight.collapsed").counters().size());
+    }
+
+    @Test
+    @DisplayName("execute does not let a call pinned to the primary join the lookup of a call reading a replica")
+    void execute_RunsSeparateLookup_WhenCallIsPinnedToPrimary() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Future<String> replicaRead = executorService.submit(() -> singleFlight.execute("findAllByName", "Mushishi", () -> {
+            started.countDown();
+            await(release);
+            return "replica";
+        }));
+        await(started);
+
+        final MockHttpServletRequest write = new MockHttpServletRequest("POST", "/animes");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        readYourWrites.preHandle(write, response, new Object());
+        try {
+            Assertions.assertEquals("primary", singleFlight.execute("findAllByName", "Mushishi", () -> "primary"));
+        } finally {
+            readYourWrites.afterCompletion(write, response, new Object(), null);
+        }
+        release.countDown();
+
+        Assertions.assertEquals("replica", replicaRead.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, collapsed());
+    }
+
+    private List<Future<String>> submitConcurrently(Callable<String> call) {
+        final List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            futures.add(executorService.submit(call));
+        }
+        return futures;
+    }
+
+    // every caller but the leader has joined once the counter reaches the expected value
+    private void waitForCollapsed(int expected) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (collapsed() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        Assertions.assertEquals(expected, collapsed());
+    }
+
+    private double collapsed() {
+        return meterRegistry.find("anime.single-flight.collapsed").counters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
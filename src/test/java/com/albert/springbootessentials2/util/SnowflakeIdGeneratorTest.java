@@ -0,0 +1,108 @@
+package com.albert.springbootessentials2.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+@DisplayName("Tests for SnowflakeIdGenerator")
+class SnowflakeIdGeneratorTest {
+
+    @Test
+    @DisplayName("nextId returns increasing ids carrying the worker id when called many times in one millisecond")
+    void nextId_ReturnsIncreasingIds_WhenCalledWithinOneMillisecond() {
+        final SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5,
+                Clock.fixed(Instant.parse("2024-06-01T00:00:00Z"), ZoneOffset.UTC));
+
+        long previous = 0;
+        for (int i = 0; i < 4096; i++) {
+            final long id = generator.nextId();
+            Assertions.assertTrue(id > previous);
+            Assertions.assertEquals(5, (id >>> 12) & SnowflakeIdGenerator.MAX_WORKER_ID);
+            previous = id;
+        }
+    }
+
+    @Test
+    @DisplayName("nextId waits for the clock and keeps increasing when the clock goes back a few milliseconds")
+    void nextId_WaitsAndKeepsIncreasing_WhenClockGoesBackWithinBound() {
+        final MutableClock clock = new MutableClock(Instant.parse("2024-06-01T00:00:01Z"));
+        final SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, clock);
+
+        final long first = generator.nextId();
+        // moves forward a millisecond on every read, as if the generator had slept
+        clock.instant = clock.instant.minusMillis(SnowflakeIdGenerator.MAX_BACKWARD_MILLIS);
+        clock.tickMillis = 1;
+
+        Assertions.assertTrue(generator.nextId() > first);
+    }
+
+    @Test
+    @DisplayName("nextId throws IllegalStateException instead of waiting when the clock goes back too far")
+    void nextId_ThrowsIllegalStateException_WhenClockGoesBackBeyondBound() {
+        final MutableClock clock = new MutableClock(Instant.parse("2024-06-01T00:00:01Z"));
+        final SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, clock);
+
+        final long first = generator.nextId();
+        clock.instant = Instant.parse("2024-06-01T00:00:00Z");
+
+        Assertions.assertThrows(IllegalStateException.class, generator::nextId);
+        // ids resume once the clock is back where it was
+        clock.instant = Instant.parse("2024-06-01T00:00:01.001Z");
+        Assertions.assertTrue(generator.nextId() > first);
+    }
+
+    @Test
+    @DisplayName("nextId moves to the next millisecond when the sequence of the current one runs out")
+    void nextId_WaitsForNextMillisecond_WhenSequenceRunsOut() {
+        final MutableClock clock = new MutableClock(Instant.parse("2024-06-01T00:00:01Z"));
+        final SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, clock);
+        for (int i = 0; i < 4096; i++) {
+            generator.nextId();
+        }
+        clock.tickMillis = 1;
+
+        final long id = generator.nextId();
+
+        Assertions.assertEquals(0, id & 4095);
+        Assertions.assertEquals(Instant.parse("2024-06-01T00:00:01.001Z").toEpochMilli() - SnowflakeIdGenerator.EPOCH_MILLIS,
+                id >>> 22);
+    }
+
+    @Test
+    @DisplayName("the constructor throws IllegalArgumentException when the worker id does not fit in 10 bits")
+    void constructor_ThrowsIllegalArgumentException_WhenWorkerIdIsOutOfRange() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant;
+        private long tickMillis;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            final Instant now = instant;
+            instant = instant.plusMillis(tickMillis);
+            return now;
+        }
+    }
+}